@@ -0,0 +1,69 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the search over {@link Person} records with the search over a {@link CompactFamilyTree} of the same tree.
+ * Both use an explicit stack, so the difference comes from the memory layout only.
+ * - person: {@link StackTeknonymyService} over the records.
+ * - compact: {@link CompactTeknonymyService} over the compact tree.
+ * - compactFromPerson: {@link CompactTeknonymyService} called with the records, as through {@link ITeknonymyService}.
+ *   The tree is converted on every call, so the difference with 'compact' is the cost of the conversion (see the GC
+ *   profiler columns for its allocations).
+ * The heap retained by each representation is estimated by {@link CompactFamilyTree#estimatedBytes()} (see
+ * CompactFamilyTreeTest.FootprintTest).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CompactFamilyTreeBenchmark {
+
+    @Param({"COMPLETE", "RANDOM"})
+    public FamilyTreeShapes.Shape shape;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private Person root;
+    private CompactFamilyTree tree;
+    private StackTeknonymyService personService;
+    private CompactTeknonymyService compactService;
+
+    @Setup
+    public void setup() {
+        root = FamilyTreeShapes.generate(shape, size, 42);
+        tree = CompactFamilyTree.of(root);
+        personService = new StackTeknonymyService();
+        compactService = new CompactTeknonymyService();
+    }
+
+    @Benchmark
+    public String person() {
+        return personService.getTeknonymy(root);
+    }
+
+    @Benchmark
+    public String compact() {
+        return compactService.getTeknonymy(tree, tree.root());
+    }
+
+    @Benchmark
+    public String compactFromPerson() {
+        return compactService.getTeknonymy(root);
+    }
+}
@@ -0,0 +1,104 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Descendant queries ({@link DescendantQueries}) with and without the number of generations of each person.
+ *
+ * 'full' is the default of {@link ITeknonymyService}, which searches the whole tree (top-k) or every generation down
+ * to the one asked for. 'pruned' is {@link TeknonymyIndex}, whose index is built in the setup. The 'visits' counter
+ * is the number of persons whose number of generations was looked up per query, i.e. the persons the pruned search
+ * reached (JMH adds it up over the measurement iterations). The full searches reach every person. On a BROOM, only
+ * the lineage and the children of the root are searched, so visits grow with sqrt(size).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DescendantQueryBenchmark {
+
+    @Param({"full", "pruned"})
+    public String search;
+
+    @Param({"BROOM", "RANDOM"})
+    public FamilyTreeShapes.Shape shape;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"10"})
+    public int k;
+
+    private Person root;
+    private TeknonymyIndex index;
+    private int height;
+
+    /**
+     * Persons reached by the pruned searches, per query.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Visits {
+        public long visits;
+        private long queries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            visits = 0;
+            queries = 0;
+        }
+
+        /**
+         * Turns the total into visits per query at the end of the iteration.
+         */
+        @TearDown(Level.Iteration)
+        public void average() {
+            visits = queries == 0 ? 0 : visits / queries;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        root = FamilyTreeShapes.generate(shape, size, 42);
+        index = new TeknonymyIndex(root);
+        height = index.getGenerations(root);
+    }
+
+    @Benchmark
+    public List<Person> topK(Visits visits) {
+        visits.queries++;
+        return search.equals("full") ? DescendantQueries.getOldestFarthestDescendants(root, k, null)
+                : DescendantQueries.getOldestFarthestDescendants(root, k, person -> {
+                    visits.visits++;
+                    return index.getGenerations(person);
+                });
+    }
+
+    @Benchmark
+    public Person deepestGeneration(Visits visits) {
+        visits.queries++;
+        return search.equals("full") ? DescendantQueries.getOldestDescendantAtGeneration(root, height, null)
+                : DescendantQueries.getOldestDescendantAtGeneration(root, height, person -> {
+                    visits.visits++;
+                    return index.getGenerations(person);
+                });
+    }
+}
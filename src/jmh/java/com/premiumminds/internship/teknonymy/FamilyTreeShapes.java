@@ -0,0 +1,206 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Family tree generators used by the benchmarks.
+ *
+ * Every shape is first described as a parent array (node '0' is the root and parent[i] < i), and then turned into
+ * {@link Person} records bottom-up. This way, no generator uses recursion, so tall trees can be built without stack
+ * overflows.
+ */
+public final class FamilyTreeShapes {
+
+    private static final LocalDateTime BASE_DATE_OF_BIRTH = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private FamilyTreeShapes() {
+    }
+
+    public enum Shape {
+        /** Complete 3-ary tree, like 'completeTreeGenerator' in the tests. */
+        COMPLETE,
+        /** One child per person, like 'getPerson2' in the tests. */
+        LINE,
+        /** A single long lineage where every person also has two childless children. */
+        SKEWED,
+        /** Two generations below the root, both of them sqrt(size) wide. */
+        BUSHY,
+        /** Random recursive tree: every person is the child of a uniformly chosen, previously created person. */
+        RANDOM,
+        /** BUSHY, plus a single lineage of sqrt(size) generations below the root. */
+        BROOM,
+        /**
+         * Like 'getPerson3' in the tests, scaled up: size / 2 children of the root, the first half of whom have two
+         * children each. Two generations, both size / 2 wide.
+         */
+        WIDE
+    }
+
+    /**
+     * Creates a family tree with (approximately, for COMPLETE, BUSHY and WIDE) 'size' persons.
+     * @param shape shape of the tree
+     * @param size number of persons
+     * @param seed seed for the dates of birth and, for RANDOM, the shape itself
+     * @return root of the tree
+     */
+    static Person generate(Shape shape, int size, long seed) {
+        Random random = new Random(seed);
+        int[] parent = switch (shape) {
+            case COMPLETE -> complete(3, size);
+            case LINE -> line(size);
+            case SKEWED -> skewed(2, size);
+            case BUSHY -> bushy(size);
+            case RANDOM -> random(size, random);
+            case BROOM -> broom(size);
+            case WIDE -> wide(size);
+        };
+        return build(parent, random);
+    }
+
+    // ===== SHAPES =====
+
+    private static int[] complete(int n, int size) {
+        // Biggest complete tree that does not exceed 'size'
+        int nodes = 1;
+        for (int level = n; nodes + level <= size; level *= n)
+            nodes += level;
+
+        int[] parent = new int[nodes];
+        parent[0] = -1;
+        for (int i = 1; i < nodes; i++)
+            parent[i] = (i - 1) / n;
+        return parent;
+    }
+
+    private static int[] line(int size) {
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++)
+            parent[i] = i - 1;
+        return parent;
+    }
+
+    private static int[] skewed(int leavesPerPerson, int size) {
+        int[] parent = new int[size];
+        parent[0] = -1;
+        int spine = 0;
+        for (int i = 1; i < size; i++) {
+            parent[i] = spine;
+            if (i % (leavesPerPerson + 1) == 0) // Last child of the current spine node continues the lineage
+                spine = i;
+        }
+        return parent;
+    }
+
+    private static int[] bushy(int size) {
+        int width = Math.max(1, (int) Math.sqrt(size));
+        int[] parent = new int[1 + width + width * width];
+        parent[0] = -1;
+        for (int i = 1; i <= width; i++)
+            parent[i] = 0;
+        for (int i = width + 1; i < parent.length; i++)
+            parent[i] = 1 + (i - width - 1) / width;
+        return parent;
+    }
+
+    private static int[] random(int size, Random random) {
+        int[] parent = new int[size];
+        parent[0] = -1;
+        for (int i = 1; i < size; i++)
+            parent[i] = random.nextInt(i);
+        return parent;
+    }
+
+    private static int[] broom(int size) {
+        int lineage = Math.max(1, (int) Math.sqrt(size));
+        int[] bushy = bushy(Math.max(1, size - lineage));
+        int[] parent = new int[lineage + bushy.length];
+        parent[0] = -1;
+        for (int i = 1; i <= lineage; i++)
+            parent[i] = i - 1;
+        for (int i = 1; i < bushy.length; i++) // The bushy family, without its root, goes after the lineage
+            parent[lineage + i] = bushy[i] == 0 ? 0 : lineage + bushy[i];
+        return parent;
+    }
+
+    private static int[] wide(int size) {
+        int width = Math.max(1, (size - 1) / 2);
+        int[] parent = new int[1 + 2 * width];
+        parent[0] = -1;
+        for (int i = 1; i <= width; i++)
+            parent[i] = 0;
+        for (int i = 0; i < width; i++)
+            parent[1 + width + i] = 1 + i / 2;
+        return parent;
+    }
+
+    /**
+     * Creates a family graph with pedigree collapse: 'generations' generations of 'width' persons below a single root,
+     * where each person has two children picked at random from the next generation. Every person is, on average, the
+     * child of two persons, so the number of paths from the root doubles with every generation.
+     * @param generations number of generations below the root
+     * @param width number of persons of each generation
+     * @param seed seed for the children and the dates of birth
+     * @return root of the graph
+     */
+    static Person pedigree(int generations, int width, long seed) {
+        Random random = new Random(seed);
+        Person[] next = null;
+        for (int g = generations; g >= 1; g--) {
+            Person[] current = new Person[width];
+            for (int i = 0; i < width; i++) {
+                Person[] children = null;
+                if (next != null) {
+                    int first = random.nextInt(width);
+                    int second = (first + 1 + random.nextInt(width - 1)) % width;
+                    children = new Person[]{next[first], next[second]};
+                }
+                current[i] = new Person("Person" + g + "-" + i, i % 2 == 0 ? 'M' : 'F', children,
+                        BASE_DATE_OF_BIRTH.plusYears(g * 30L).plusMinutes(random.nextInt(1_000_000)));
+            }
+            next = current;
+        }
+        return new Person("Root", 'M', next, BASE_DATE_OF_BIRTH);
+    }
+
+    // ===== BUILDER =====
+
+    /**
+     * Builds the Person records of a parent array. Dates of birth are a random permutation, so the oldest person of
+     * a generation is not always the first one.
+     */
+    private static Person build(int[] parent, Random random) {
+        int size = parent.length;
+
+        int[] childCount = new int[size];
+        for (int i = 1; i < size; i++)
+            childCount[parent[i]]++;
+
+        int[] birthOrder = new int[size];
+        for (int i = 0; i < size; i++)
+            birthOrder[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = birthOrder[i];
+            birthOrder[i] = birthOrder[j];
+            birthOrder[j] = aux;
+        }
+
+        Person[][] children = new Person[size][];
+        Person[] persons = new Person[size];
+        for (int i = size - 1; i >= 0; i--) { // Children always come after their parents
+            persons[i] = new Person("Person" + i, i % 2 == 0 ? 'M' : 'F', children[i],
+                    BASE_DATE_OF_BIRTH.plusMinutes(birthOrder[i]));
+            children[i] = null;
+
+            if (i > 0) {
+                int p = parent[i];
+                if (children[p] == null)
+                    children[p] = new Person[childCount[p]];
+                children[p][--childCount[p]] = persons[i]; // Filled from the last to keep the original order
+            }
+        }
+
+        return persons[0];
+    }
+}
@@ -0,0 +1,71 @@
+package com.premiumminds.internship.teknonymy;
+
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link InstrumentedTeknonymyService} on small trees, where it weighs the most:
+ * - plain: the engine, not wrapped.
+ * - disabled: wrapped, without metrics and without a JFR recording.
+ * - metrics: wrapped, with {@link JmxTeknonymyMetrics}.
+ * - recording: wrapped, with metrics and a JFR recording running (default 10 ms threshold, so nothing is committed).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"plain", "disabled", "metrics", "recording"})
+    public String mode;
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Person root;
+    private ITeknonymyService service;
+    private Recording recording;
+
+    @Setup
+    public void setup() {
+        root = FamilyTreeShapes.generate(FamilyTreeShapes.Shape.RANDOM, size, 42);
+        StackTeknonymyService engine = new StackTeknonymyService();
+        service = switch (mode) {
+            case "plain" -> engine;
+            case "disabled" -> new InstrumentedTeknonymyService(engine);
+            case "metrics", "recording" -> new InstrumentedTeknonymyService(engine, new JmxTeknonymyMetrics());
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+        if (mode.equals("recording")) {
+            recording = new Recording();
+            recording.enable(TeknonymyEvent.class);
+            recording.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (recording != null)
+            recording.close();
+    }
+
+    @Benchmark
+    public String getTeknonymy() {
+        return service.getTeknonymy(root);
+    }
+}
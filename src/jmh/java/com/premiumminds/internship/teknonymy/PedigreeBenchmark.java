@@ -0,0 +1,62 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a tree engine with the memoized DAG engine on family graphs with pedigree collapse
+ * (see {@link FamilyTreeShapes#pedigree}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedigreeBenchmark {
+
+    @Param({"10", "20"})
+    public int generations;
+
+    @Param({"100"})
+    public int width;
+
+    private Person root;
+    private StackTeknonymyService stackService;
+    private DagTeknonymyService warmDagService;
+
+    @Setup
+    public void setup() {
+        root = FamilyTreeShapes.pedigree(generations, width, 42);
+        stackService = new StackTeknonymyService();
+        warmDagService = new DagTeknonymyService();
+    }
+
+    @Benchmark
+    public String stack() {
+        return stackService.getTeknonymy(root);
+    }
+
+    /** Empty memo on every call. */
+    @Benchmark
+    public String dagCold() {
+        return new DagTeknonymyService().getTeknonymy(root);
+    }
+
+    /** Memo kept between calls. */
+    @Benchmark
+    public String dagWarm() {
+        return warmDagService.getTeknonymy(root);
+    }
+}
@@ -0,0 +1,69 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ShardedTeknonymyService} with the number of worker processes, on a family tree file. The
+ * 'workers = 0' case is a single {@link CompactTeknonymyService} over the same file, in the benchmark JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ShardedBenchmark {
+
+    @Param({"0", "1", "2", "4"})
+    public int workers;
+
+    @Param({"COMPLETE", "RANDOM"})
+    public FamilyTreeShapes.Shape shape;
+
+    @Param({"10000000"})
+    public int size;
+
+    private Path file;
+    private ICompactFamilyTree tree;
+    private ShardedTeknonymyService sharded;
+    private CompactTeknonymyService compact;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("teknonymy-benchmark", ".tkny");
+        FamilyTreeFile.write(FamilyTreeShapes.generate(shape, size, 42), file);
+        System.gc(); // The Person records are not needed anymore
+        tree = FamilyTreeFile.open(file);
+        compact = new CompactTeknonymyService();
+        if (workers > 0)
+            sharded = new ShardedTeknonymyService(workers);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (sharded != null)
+            sharded.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String getTeknonymy() throws IOException {
+        return workers == 0 ? compact.getTeknonymy(tree, tree.root()) : sharded.getTeknonymy(file, tree.root());
+    }
+}
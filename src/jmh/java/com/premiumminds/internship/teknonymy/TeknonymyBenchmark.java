@@ -0,0 +1,66 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares every teknonymy engine over several tree shapes and sizes.
+ *
+ * New engines should be added to 'createEngine' and to the 'engine' parameter list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// The recursive engine needs a big stack for the tall shapes (LINE and SKEWED), otherwise it would not be comparable.
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m"})
+public class TeknonymyBenchmark {
+
+    @Param({"rec", "iter", "parallel", "stack", "adaptive", "level"})
+    public String engine;
+
+    @Param({"COMPLETE", "LINE", "SKEWED", "BUSHY", "RANDOM", "WIDE"})
+    public FamilyTreeShapes.Shape shape;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private ITeknonymyService service;
+    private Person root;
+
+    @Setup
+    public void setup() {
+        service = createEngine(engine);
+        root = FamilyTreeShapes.generate(shape, size, 42);
+    }
+
+    @Benchmark
+    public String getTeknonymy() {
+        return service.getTeknonymy(root);
+    }
+
+    static ITeknonymyService createEngine(String engine) {
+        TeknonymyService service = new TeknonymyService();
+        return switch (engine) {
+            case "rec" -> service::getTeknonymy_rec;
+            case "iter" -> service::getTeknonymy_iter;
+            case "parallel" -> new ParallelTeknonymyService();
+            case "stack" -> new StackTeknonymyService();
+            case "adaptive" -> new AdaptiveTeknonymyService();
+            case "level" -> new LevelParallelTeknonymyService();
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sustained load on {@link TeknonymyProcessor}, reporting latency percentiles. JMH measures throughput and average
+ * times, not the tail latency of a stream, so this is a plain program:
+ * <pre>
+ * java -Xmx1g -cp target/benchmarks.jar com.premiumminds.internship.teknonymy.TeknonymyLoadGenerator \
+ *     [rate] [seconds] [size]
+ * </pre>
+ * A small default heap makes the cached answers trigger full collections, which then dominate the tail latency.
+ *
+ * Queries are sent at a fixed rate (open loop) for persons of a random family tree of 'size' persons, skewed towards
+ * a hot set, as real queries usually are. The latency of each query is measured from the time it should have been
+ * sent, not from when it was, so a stalled pipeline is not hidden by the producer slowing down (coordinated omission).
+ *
+ * The same queries are run with a synchronous call per query (the baseline), with the processor without cache, and
+ * with the processor with its default cache.
+ */
+public final class TeknonymyLoadGenerator {
+
+    private TeknonymyLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        Person[] persons = allPersons(FamilyTreeShapes.generate(FamilyTreeShapes.Shape.RANDOM, size, 42));
+        Person[] queries = new Person[rate * seconds];
+        Random random = new Random(7);
+        Collections.shuffle(Arrays.asList(persons), random); // The hot set is not only the oldest generations
+        for (int i = 0; i < queries.length; i++) {
+            double u = random.nextDouble();
+            queries[i] = persons[(int) (persons.length * u * u * u)]; // Skewed towards a hot set
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        System.out.printf("%d queries/s for %d s, random tree of %d persons%n", rate, seconds, persons.length);
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %8s%n", "", "queries/s", "p50 us", "p99 us", "p99.9 us",
+                "max us", "hits");
+        for (int round = 0; round < 2; round++) { // The first round is the warm-up
+            boolean report = round == 1;
+            report("synchronous", report, seconds, runSynchronous(queries, intervalNanos), null);
+            TeknonymyProcessor uncached = new TeknonymyProcessor(new TeknonymyService(),
+                    TeknonymyProcessor.DEFAULT_MAX_BATCH_SIZE, TeknonymyProcessor.DEFAULT_MAX_DELAY_NANOS, 0,
+                    Flow.defaultBufferSize());
+            report("processor", report, seconds, runProcessor(uncached, queries, intervalNanos), uncached);
+            TeknonymyProcessor cached = new TeknonymyProcessor();
+            report("processor+LRU", report, seconds, runProcessor(cached, queries, intervalNanos), cached);
+        }
+    }
+
+    /**
+     * One call per query, on the thread that sends them.
+     * @return latency of each query
+     */
+    private static long[] runSynchronous(Person[] queries, long intervalNanos) {
+        TeknonymyService service = new TeknonymyService();
+        long[] latencies = new long[queries.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < queries.length; i++) {
+            long intended = start + i * intervalNanos;
+            waitUntil(intended);
+            service.getTeknonymy(queries[i]);
+            latencies[i] = System.nanoTime() - intended;
+        }
+        return latencies;
+    }
+
+    /**
+     * Queries sent through 'processor'. Answers come in the same order as the queries, so the i-th answer is the
+     * answer to the i-th query.
+     * @return latency of each query
+     */
+    private static long[] runProcessor(TeknonymyProcessor processor, Person[] queries, long intervalNanos) {
+        long[] latencies = new long[queries.length];
+        long start = System.nanoTime();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        processor.subscribe(new Flow.Subscriber<>() {
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TeknonymyProcessor.Answer item) {
+                latencies[received] = System.nanoTime() - (start + received * intervalNanos);
+                received++;
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        try (SubmissionPublisher<Person> publisher = new SubmissionPublisher<>(Runnable::run,
+                Flow.defaultBufferSize())) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < queries.length; i++) {
+                waitUntil(start + i * intervalNanos);
+                publisher.submit(queries[i]); // Blocks if the processor falls behind
+            }
+        }
+        done.join();
+        return latencies;
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0)
+            LockSupport.parkNanos(remaining);
+    }
+
+    private static void report(String name, boolean report, int seconds, long[] latencies,
+                               TeknonymyProcessor processor) {
+        if (!report)
+            return;
+        Arrays.sort(latencies);
+        String hits = processor == null ? "-"
+                : String.format("%.1f%%", 100.0 * processor.getHits() / (processor.getHits() + processor.getMisses()));
+        System.out.printf("%-14s %10d %10.1f %10.1f %10.1f %10.1f %8s%n", name, latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1000.0, hits);
+    }
+
+    /**
+     * @return percentile 'p' of the sorted 'latencies', in microseconds
+     */
+    private static double percentile(long[] latencies, double p) {
+        return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1000.0;
+    }
+
+    private static Person[] allPersons(Person root) {
+        List<Person> persons = new ArrayList<>();
+        Queue<Person> queue = new ArrayDeque<>();
+        queue.add(root);
+        Person person;
+        while ((person = queue.poll()) != null) {
+            persons.add(person);
+            if (person.children() != null)
+                queue.addAll(List.of(person.children()));
+        }
+        return persons.toArray(new Person[0]);
+    }
+}
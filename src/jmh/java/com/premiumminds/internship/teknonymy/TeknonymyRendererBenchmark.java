@@ -0,0 +1,76 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the rendering of a Teknonymy name by repeated insertion at the front of a StringBuilder (the original
+ * 'buildTeknonymy') with {@link TeknonymyRenderer}, both into a new String and into reused buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeknonymyRendererBenchmark {
+
+    @Param({"1", "3", "20", "100", "1000"})
+    public int depth;
+
+    private final String parenthood = "mother";
+    private final String name = "Jerry";
+    private StringBuilder builder;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        builder = new StringBuilder(16 * depth);
+        buffer = ByteBuffer.allocateDirect(16 * depth);
+    }
+
+    @Benchmark
+    public String insertion() {
+        StringBuilder degree = new StringBuilder();
+
+        if (depth >= 1)
+            degree.insert(0, parenthood);
+
+        if (depth >= 2)
+            degree.insert(0, "grand");
+
+        for (int i = 3; i <= depth; i++)
+            degree.insert(0, "great-");
+
+        return depth == 0 ? "" : degree + " of " + name;
+    }
+
+    @Benchmark
+    public String render() {
+        return TeknonymyRenderer.render(parenthood, name, depth);
+    }
+
+    @Benchmark
+    public StringBuilder appendStringBuilder() {
+        builder.setLength(0);
+        return TeknonymyRenderer.appendTeknonymy(builder, parenthood, name, depth);
+    }
+
+    @Benchmark
+    public ByteBuffer appendByteBuffer() {
+        buffer.clear();
+        return TeknonymyRenderer.appendTeknonymy(buffer, parenthood, name, depth);
+    }
+}
@@ -0,0 +1,82 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost with and without a {@link TeknonymySnapshot}, on a mapped {@link FamilyTreeFile}:
+ * - compute: the result of every person, from scratch.
+ * - contentHash: the content hash of the tree, which 'open' does not compute, since the tree file stores it.
+ * - open: maps the snapshot, checked against the content hash stored in the tree file, without verifying the
+ *   checksum.
+ * - openVerified: same as 'open', but also verifies the checksum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TeknonymySnapshotBenchmark {
+
+    @Param({"10000000"})
+    public int size;
+
+    private Path treeFile;
+    private Path snapshotFile;
+    private FamilyTreeFile.MappedFamilyTree tree;
+
+    @Setup
+    public void setup() throws IOException {
+        treeFile = Files.createTempFile("teknonymy-benchmark", ".tkny");
+        snapshotFile = Files.createTempFile("teknonymy-benchmark", ".tksn");
+        FamilyTreeFile.write(FamilyTreeShapes.generate(FamilyTreeShapes.Shape.RANDOM, size, 42), treeFile);
+        System.gc(); // The Person records are not needed anymore
+        tree = FamilyTreeFile.open(treeFile);
+        TeknonymySnapshot.write(tree, snapshotFile, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(treeFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public int[] compute() {
+        int[] generations = new int[tree.size()];
+        int[] oldest = new int[tree.size()];
+        TeknonymySnapshot.computeResults(tree, generations, oldest);
+        return oldest;
+    }
+
+    @Benchmark
+    public long contentHash() {
+        return TeknonymySnapshot.contentHash(tree, false);
+    }
+
+    @Benchmark
+    public TeknonymySnapshot.MappedSnapshot open() throws IOException {
+        return TeknonymySnapshot.open(snapshotFile, tree, false);
+    }
+
+    @Benchmark
+    public TeknonymySnapshot.MappedSnapshot openVerified() throws IOException {
+        return TeknonymySnapshot.open(snapshotFile, tree, true);
+    }
+}
@@ -0,0 +1,169 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CountingTeknonymyService.TraversalCounter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses the engine of each call from the shape of the tree:
+ * - Recursive ({@link TeknonymyService#getTeknonymy_rec}): the fastest, but it overflows the stack on tall trees.
+ * - Explicit stack ({@link StackTeknonymyService}): never overflows, so it is used for tall trees.
+ * - Parallel ({@link ParallelTeknonymyService}): only pays off when the tree is large enough to keep every core busy.
+ *
+ * The shape is sampled with random root-to-leaf walks (Knuth's estimator): the product of the fan-outs along a walk is
+ * an unbiased estimate of the size of each generation, and the length of the walks gives a lower bound of the height.
+ * Walks stop at 'maxRecursiveGenerations', so probing costs at most 'samples * maxRecursiveGenerations' steps, and
+ * usually a few hundred. A walk without any branching is not repeated, since every other walk would be the same.
+ *
+ * Sampling can miss a single tall branch. If the recursive or the parallel engine overflows the stack anyway, the call
+ * is retried with the explicit stack, and the fallback is counted.
+ *
+ * Every decision is counted, and {@link #decide(Person)} shows the decision for a given tree, for tuning. This class
+ * is thread-safe.
+ */
+class AdaptiveTeknonymyService implements CountingTeknonymyService {
+
+    enum Engine {RECURSIVE, STACK, PARALLEL}
+
+    /**
+     * Decision for a tree, and the sampled shape that led to it.
+     * @param engine chosen engine
+     * @param sampledGenerations length of the longest sampled walk (at most 'maxRecursiveGenerations')
+     * @param sampledMaxFanOut largest number of children seen on the walks
+     * @param estimatedPersons estimated number of persons in the tree, or NaN if sampling stopped at a tall walk
+     */
+    record Decision(Engine engine, int sampledGenerations, int sampledMaxFanOut, double estimatedPersons) {
+    }
+
+    static final int DEFAULT_SAMPLES = 16;
+    static final int DEFAULT_MAX_RECURSIVE_GENERATIONS = 1000;
+    static final long DEFAULT_PARALLEL_THRESHOLD = 200_000;
+
+    private final TeknonymyService recursive = new TeknonymyService();
+    private final ThreadLocal<StackTeknonymyService> stack = ThreadLocal.withInitial(StackTeknonymyService::new);
+    private final ParallelTeknonymyService parallel;
+    private final int samples;
+    private final int maxRecursiveGenerations;
+    private final long parallelThreshold;
+
+    private final AtomicLongArray decisions = new AtomicLongArray(Engine.values().length);
+    private final LongAdder fallbacks = new LongAdder();
+
+    AdaptiveTeknonymyService() {
+        this(new ParallelTeknonymyService(), DEFAULT_SAMPLES, DEFAULT_MAX_RECURSIVE_GENERATIONS,
+                DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param parallel engine for large trees
+     * @param samples number of random walks per call
+     * @param maxRecursiveGenerations trees with a sampled walk this long use the explicit stack
+     * @param parallelThreshold trees with at least this number of estimated persons use the parallel engine
+     */
+    AdaptiveTeknonymyService(ParallelTeknonymyService parallel, int samples, int maxRecursiveGenerations,
+                             long parallelThreshold) {
+        if (samples < 1)
+            throw new IllegalArgumentException("samples must be positive: " + samples);
+        if (maxRecursiveGenerations < 1)
+            throw new IllegalArgumentException("maxRecursiveGenerations must be positive: " + maxRecursiveGenerations);
+
+        this.parallel = parallel;
+        this.samples = samples;
+        this.maxRecursiveGenerations = maxRecursiveGenerations;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        return getTeknonymy(person, null);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name, counting what the search visits. Only the recursive and explicit-stack
+     * engines count, and a search that overflowed the stack is not counted.
+     * @param person person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person, TraversalCounter counter) {
+        Engine engine = decide(person).engine();
+        decisions.incrementAndGet(engine.ordinal());
+
+        TraversalCounter attempt = counter == null ? null : new TraversalCounter();
+        String teknonymy;
+        try {
+            teknonymy = switch (engine) {
+                case RECURSIVE -> recursive.getTeknonymy_rec(person, attempt);
+                case PARALLEL -> parallel.getTeknonymy(person);
+                case STACK -> stack.get().getTeknonymy(person, attempt);
+            };
+        } catch (StackOverflowError e) {
+            if (engine == Engine.STACK)
+                throw e;
+            fallbacks.increment();
+            attempt = counter == null ? null : new TraversalCounter();
+            teknonymy = stack.get().getTeknonymy(person, attempt);
+        }
+        if (counter != null)
+            counter.record(attempt.personsVisited(), attempt.maxDepth(), attempt.maxFanOut());
+        return teknonymy;
+    }
+
+    /**
+     * Samples the shape of the tree and chooses an engine for it. Does not count as a call.
+     * @param person root of the tree
+     * @return decision and sampled shape
+     */
+    public Decision decide(Person person) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int generations = 0;
+        int maxFanOut = 0;
+        double estimatedPersons = 0;
+
+        for (int s = 0; s < samples; s++) {
+            double generationSize = 1; // Estimated number of persons in the current generation
+            double walkEstimate = 1;
+            int depth = 0;
+            Person current = person;
+            Person[] children;
+            while ((children = current.children()) != null && children.length > 0) {
+                if (++depth >= maxRecursiveGenerations)
+                    return new Decision(Engine.STACK, depth, Math.max(maxFanOut, children.length), Double.NaN);
+                maxFanOut = Math.max(maxFanOut, children.length);
+                generationSize *= children.length;
+                walkEstimate += generationSize;
+                current = children[random.nextInt(children.length)];
+            }
+            generations = Math.max(generations, depth);
+            estimatedPersons += (walkEstimate - estimatedPersons) / (s + 1); // Running mean
+            if (walkEstimate == depth + 1) // No branching on the walk: every other walk would be the same
+                break;
+        }
+
+        Engine engine = estimatedPersons >= parallelThreshold ? Engine.PARALLEL : Engine.RECURSIVE;
+        return new Decision(engine, generations, maxFanOut, estimatedPersons);
+    }
+
+    /**
+     * @param engine engine
+     * @return number of calls for which 'engine' was chosen
+     */
+    public long getDecisions(Engine engine) {
+        return decisions.get(engine.ordinal());
+    }
+
+    /**
+     * @return number of calls that overflowed the stack and were retried with the explicit stack
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
@@ -0,0 +1,167 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory family tree stored as parallel primitive arrays, one entry per person (struct-of-arrays).
+ *
+ * A {@link Person} costs well over 100 bytes (the record, its 'LocalDateTime' and the 'children' array), while a
+ * person here costs about 17 bytes plus their name, and names that repeat are stored only once. Comparing dates of
+ * birth is a comparison of two longs instead of two 'LocalDateTime' objects.
+ *
+ * Persons are numbered in breadth-first order (see {@link ICompactFamilyTree}), so the children of a person are the
+ * range [childOffsets[i], childOffsets[i + 1]) and no child index array is needed (CSR without the column array).
+ */
+final class CompactFamilyTree implements ICompactFamilyTree {
+
+    private final int[] childOffsets; // Children of 'i' are [childOffsets[i], childOffsets[i + 1])
+    private final long[] birthEpochSeconds;
+    private final int[] birthNanos; // null if every date of birth is a whole second
+    private final byte[] sexes;
+    private final int[] nameIndexes;
+    private final String[] names;
+
+    CompactFamilyTree(int[] childOffsets, long[] birthEpochSeconds, int[] birthNanos, byte[] sexes,
+                      int[] nameIndexes, String[] names) {
+        this.childOffsets = childOffsets;
+        this.birthEpochSeconds = birthEpochSeconds;
+        this.birthNanos = birthNanos;
+        this.sexes = sexes;
+        this.nameIndexes = nameIndexes;
+        this.names = names;
+    }
+
+    /**
+     * Converts the tree which root is 'root'.
+     * @param root root of the family tree
+     * @return compact copy of the family tree
+     */
+    static CompactFamilyTree of(Person root) {
+        // Breadth-first search. The queue is never polled, so, at the end, it holds every person in index order.
+        Person[] queue = new Person[64];
+        int[] childOffsets = new int[65];
+        queue[0] = root;
+        int size = 1;
+
+        for (int i = 0; i < size; i++) {
+            Person[] children = queue[i].children();
+            int count = children == null ? 0 : children.length;
+            if (size + count > queue.length) {
+                int capacity = Math.max(queue.length * 2, size + count);
+                queue = Arrays.copyOf(queue, capacity);
+                childOffsets = Arrays.copyOf(childOffsets, capacity + 1);
+            }
+
+            // Children are appended right after the children of the previous person
+            childOffsets[i] = size;
+            for (int c = 0; c < count; c++)
+                queue[size++] = children[c];
+        }
+
+        long[] birthEpochSeconds = new long[size];
+        int[] birthNanos = null;
+        byte[] sexes = new byte[size];
+        int[] nameIndexes = new int[size];
+        Map<String, Integer> nameIndexByName = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            Person person = queue[i];
+            LocalDateTime dateOfBirth = person.dateOfBirth();
+            birthEpochSeconds[i] = dateOfBirth.toEpochSecond(ZoneOffset.UTC);
+            if (dateOfBirth.getNano() != 0) {
+                if (birthNanos == null)
+                    birthNanos = new int[size];
+                birthNanos[i] = dateOfBirth.getNano();
+            }
+            sexes[i] = (byte) person.sex().charValue();
+            nameIndexes[i] = nameIndexByName.computeIfAbsent(person.name(), name -> nameIndexByName.size());
+            queue[i] = null;
+        }
+
+        String[] names = new String[nameIndexByName.size()];
+        nameIndexByName.forEach((name, index) -> names[index] = name);
+
+        childOffsets = Arrays.copyOf(childOffsets, size + 1);
+        childOffsets[size] = size;
+
+        return new CompactFamilyTree(childOffsets, birthEpochSeconds, birthNanos, sexes, nameIndexes, names);
+    }
+
+    /**
+     * Estimate of the heap retained by this tree, in bytes, on a 64-bit JVM with compressed references: 12-byte object
+     * headers, 16-byte array headers (with the length) and 8-byte alignment, like JOL would report.
+     * The names are the same String objects as in the {@link Person} records it was converted from, so only the
+     * references to them are counted.
+     *
+     * @return estimated size of this tree and its arrays
+     */
+    long estimatedBytes() {
+        return align(12 + 6 * 4) // This object, with 6 references
+                + estimatedArrayBytes(childOffsets.length, 4)
+                + estimatedArrayBytes(birthEpochSeconds.length, 8)
+                + (birthNanos == null ? 0 : estimatedArrayBytes(birthNanos.length, 4))
+                + estimatedArrayBytes(sexes.length, 1)
+                + estimatedArrayBytes(nameIndexes.length, 4)
+                + estimatedArrayBytes(names.length, 4);
+    }
+
+    /**
+     * @param length number of elements
+     * @param elementBytes size of each element (4 for references)
+     * @return estimated size of an array, with the same assumptions as {@link #estimatedBytes()}
+     */
+    static long estimatedArrayBytes(int length, int elementBytes) {
+        return align(16 + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    @Override
+    public int size() {
+        return childOffsets.length - 1;
+    }
+
+    @Override
+    public int firstChild(int person) {
+        return childOffsets[person];
+    }
+
+    @Override
+    public int childCount(int person) {
+        return childOffsets[person + 1] - childOffsets[person];
+    }
+
+    @Override
+    public long birthEpochSecond(int person) {
+        return birthEpochSeconds[person];
+    }
+
+    @Override
+    public int birthNano(int person) {
+        return birthNanos == null ? 0 : birthNanos[person];
+    }
+
+    @Override
+    public char sex(int person) {
+        return (char) sexes[person];
+    }
+
+    @Override
+    public String name(int person) {
+        return names[nameIndexes[person]];
+    }
+
+    @Override
+    public boolean isOlder(int person, int other) {
+        long personSecond = birthEpochSeconds[person];
+        long otherSecond = birthEpochSeconds[other];
+        return personSecond < otherSecond
+                || (personSecond == otherSecond && birthNanos != null && birthNanos[person] < birthNanos[other]);
+    }
+}
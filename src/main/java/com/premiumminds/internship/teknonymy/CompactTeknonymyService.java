@@ -0,0 +1,179 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CountingTeknonymyService.TraversalCounter;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Teknonymy over an {@link ICompactFamilyTree}.
+ *
+ * It is the same depth-first search as {@link StackTeknonymyService}, but the path is kept in int arrays and persons
+ * are indexes, so the search only reads primitive arrays. Those arrays are kept between calls, so an instance of
+ * this class must not be used by more than one thread at a time.
+ */
+class CompactTeknonymyService implements CountingTeknonymyService {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Entry 'i' of each array belongs to the person at generation 'i' of the current path.
+    private int[] persons = new int[INITIAL_CAPACITY];
+    private int[] nextChild = new int[INITIAL_CAPACITY]; // Index of the next child to search
+    private int[] oldestDescendants = new int[INITIAL_CAPACITY]; // Best candidate of the children searched so far
+    private int[] depths = new int[INITIAL_CAPACITY]; // Depth of the best candidate, relative to the bottom of the tree
+
+    /**
+     * Method to get a Person Teknonymy Name.
+     * The tree is converted to a {@link CompactFamilyTree} first, on every call, since 'children' arrays can change
+     * between calls. To query the same tree many times, convert it once with {@link CompactFamilyTree#of(Person)} and
+     * use {@link #getTeknonymy(ICompactFamilyTree, int)} instead.
+     *
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        return getTeknonymy(person, null);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name, counting what the search visits. The conversion is not counted.
+     * @param person person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person, TraversalCounter counter) {
+        CompactFamilyTree tree = CompactFamilyTree.of(person);
+        return getTeknonymy(tree, tree.root(), counter);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     * Each call uses its own instance, since instances are not thread-safe.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        return CompletableFuture.supplyAsync(() -> new CompactTeknonymyService().getTeknonymy(person));
+    }
+
+    /**
+     * Result of a search.
+     * @param person index of the oldest of the farthest descendants ('person' itself if it has no children)
+     * @param depth depth of that descendant, relative to the person searched
+     */
+    record IndexDepth(int person, int depth) {
+    }
+
+    /**
+     * Method to get the Teknonymy Name of any person of a compact family tree.
+     * @param tree family tree
+     * @param person index of the person
+     * @return String which is the Teknonymy Name
+     */
+    public String getTeknonymy(ICompactFamilyTree tree, int person) {
+        return getTeknonymy(tree, person, null);
+    }
+
+    /**
+     * Method to get the Teknonymy Name of any person of a compact family tree, counting what the search visits.
+     * @param tree family tree
+     * @param person index of the person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     * @return String which is the Teknonymy Name
+     */
+    public String getTeknonymy(ICompactFamilyTree tree, int person, TraversalCounter counter) {
+        IndexDepth result = search(tree, person, counter);
+        return result.depth() == 0 ? ""
+                : TeknonymyService.buildTeknonymy(Person.getParenthood(tree.sex(person)), tree.name(result.person()),
+                result.depth());
+    }
+
+    /**
+     * Finds the oldest of the farthest descendants of 'person'.
+     * @param tree family tree
+     * @param person index of the person
+     * @return index and depth of that descendant
+     */
+    IndexDepth search(ICompactFamilyTree tree, int person) {
+        return search(tree, person, null);
+    }
+
+    /**
+     * Finds the oldest of the farthest descendants of 'person'.
+     * @param tree family tree
+     * @param person index of the person
+     * @param counter if not null, receives the number of persons visited, the maximum depth reached and the maximum
+     *                fan-out
+     * @return index and depth of that descendant
+     */
+    IndexDepth search(ICompactFamilyTree tree, int person, TraversalCounter counter) {
+        int top = 0;
+        push(tree, top, person);
+        // Counted in locals either way, which costs less than checking 'counter' on every person
+        long visited = 1;
+        int maxTop = 0;
+        int maxFanOut = 0;
+
+        while (true) {
+            int current = persons[top];
+
+            int childCount = tree.childCount(current);
+            if (nextChild[top] < tree.firstChild(current) + childCount) { // Downwards
+                if (childCount > maxFanOut)
+                    maxFanOut = childCount;
+                int child = nextChild[top]++;
+                if (++top == persons.length)
+                    grow();
+                push(tree, top, child);
+                visited++;
+                if (top > maxTop)
+                    maxTop = top;
+                continue;
+            }
+
+            // Upwards: every child was searched, so the result of 'current' is known
+            int oldestDescendant;
+            int depth;
+            if (oldestDescendants[top] < 0) { // Leaf
+                oldestDescendant = current;
+                depth = 0;
+            } else {
+                oldestDescendant = oldestDescendants[top];
+                depth = depths[top] + 1;
+            }
+
+            if (top == 0) {
+                if (counter != null)
+                    counter.record(visited, maxTop, maxFanOut);
+                return new IndexDepth(oldestDescendant, depth);
+            }
+
+            // The chosen child should be the oldest of the deepest.
+            top--;
+            if (oldestDescendants[top] < 0 || depths[top] < depth
+                    || (depths[top] == depth && tree.isOlder(oldestDescendant, oldestDescendants[top]))) {
+                oldestDescendants[top] = oldestDescendant;
+                depths[top] = depth;
+            }
+        }
+    }
+
+    private void push(ICompactFamilyTree tree, int index, int person) {
+        persons[index] = person;
+        nextChild[index] = tree.firstChild(person);
+        oldestDescendants[index] = -1;
+        depths[index] = -1;
+    }
+
+    private void grow() {
+        int capacity = persons.length * 2;
+        persons = Arrays.copyOf(persons, capacity);
+        nextChild = Arrays.copyOf(nextChild, capacity);
+        oldestDescendants = Arrays.copyOf(oldestDescendants, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+}
@@ -0,0 +1,185 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the Teknonymy of many persons concurrently, with limits.
+ *
+ * Each call runs as its own task, on a pool with one thread per pending call at most, so a task that waits for a slot
+ * never keeps another one from getting its own. Threads are created on demand and stop after a minute without work.
+ * Tasks are limited in three ways:
+ * - At most 'maxConcurrency' of them compute at the same time.
+ * - At most 'maxLargeConcurrency' of those may be large trees (more than 'largeTreeThreshold' persons). It must be
+ *   smaller than 'maxConcurrency', so a burst of huge trees always leaves room for small ones. Whether a tree is large
+ *   is found out by counting its persons (up to the threshold) once the task may compute, so those counts are bounded
+ *   by 'maxConcurrency' too.
+ * - At most 'maxPending' calls may be waiting or running. After that, 'getTeknonymyAsync' blocks the caller until a
+ *   call finishes (backpressure), instead of queueing without bounds.
+ *
+ * Engines are created with the given supplier, one per task, so engines that are not thread-safe can be used.
+ */
+class ConcurrentTeknonymyService implements ITeknonymyService, AutoCloseable {
+
+    static final int DEFAULT_LARGE_TREE_THRESHOLD = 100_000;
+
+    private final Supplier<? extends ITeknonymyService> engines;
+    private final int largeTreeThreshold;
+    private final Semaphore computing;
+    private final Semaphore computingLarge;
+    private final Semaphore pending;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Uses {@link StackTeknonymyService}, one computation per core (at least two, of which half may be large trees)
+     * and up to 64 pending calls per core.
+     */
+    ConcurrentTeknonymyService() {
+        this(StackTeknonymyService::new, Math.max(2, Runtime.getRuntime().availableProcessors()),
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_LARGE_TREE_THRESHOLD,
+                64 * Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param engines creates the engine of each task
+     * @param maxConcurrency maximum number of computations at the same time
+     * @param maxLargeConcurrency maximum number of computations of large trees at the same time, smaller than
+     *                            'maxConcurrency'
+     * @param largeTreeThreshold trees with more persons than this are large
+     * @param maxPending maximum number of calls waiting or running
+     */
+    ConcurrentTeknonymyService(Supplier<? extends ITeknonymyService> engines, int maxConcurrency,
+                               int maxLargeConcurrency, int largeTreeThreshold, int maxPending) {
+        if (maxLargeConcurrency < 1 || maxLargeConcurrency >= maxConcurrency)
+            throw new IllegalArgumentException("Invalid concurrency limits: " + maxConcurrency + ", "
+                    + maxLargeConcurrency);
+        if (maxPending < maxConcurrency)
+            throw new IllegalArgumentException("maxPending must be at least maxConcurrency: " + maxPending);
+
+        this.engines = engines;
+        this.largeTreeThreshold = largeTreeThreshold;
+        this.computing = new Semaphore(maxConcurrency, true);
+        this.computingLarge = new Semaphore(maxLargeConcurrency, true);
+        this.pending = new Semaphore(maxPending, true);
+        this.executor = newExecutor(maxPending);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name. Blocks until it is computed.
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        try {
+            return getTeknonymyAsync(person).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without waiting for it to be computed.
+     * Blocks only if there are already 'maxPending' calls waiting or running.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        pending.acquireUninterruptibly();
+        try {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            executor.execute(() -> {
+                try {
+                    future.complete(compute(person));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    pending.release();
+                }
+            });
+            return future;
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    private String compute(Person person) throws InterruptedException {
+        computing.acquire();
+        boolean large = false;
+        try {
+            if (isLarge(person)) {
+                if (!computingLarge.tryAcquire()) {
+                    // Wait for a large slot without holding a slot that a small tree could use
+                    computing.release();
+                    try {
+                        computingLarge.acquire();
+                    } finally {
+                        computing.acquireUninterruptibly();
+                    }
+                }
+                large = true;
+            }
+            return engines.get().getTeknonymy(person);
+        } finally {
+            computing.release();
+            if (large)
+                computingLarge.release();
+        }
+    }
+
+    /**
+     * Counts the persons of the tree, but stops as soon as there are more than 'largeTreeThreshold'.
+     */
+    private boolean isLarge(Person person) {
+        Queue<Person> queue = new ArrayDeque<>();
+        queue.add(person);
+        int count = 0;
+        Person current;
+        while ((current = queue.poll()) != null) {
+            if (++count > largeTreeThreshold)
+                return true;
+            if (current.children() != null)
+                for (Person child : current.children())
+                    queue.add(child);
+        }
+        return false;
+    }
+
+    /**
+     * Stops accepting calls. Calls already made still complete.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Pool of daemon threads, as many as calls may be pending. 'pending' is acquired before a task is submitted, so
+     * the queue is only used for the short time between a thread finishing a task and taking the next one.
+     */
+    private static ThreadPoolExecutor newExecutor(int maxPending) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxPending, maxPending, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "teknonymy-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
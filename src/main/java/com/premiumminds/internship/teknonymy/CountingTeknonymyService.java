@@ -0,0 +1,60 @@
+package com.premiumminds.internship.teknonymy;
+
+/**
+ * Engine that can tell how much of the tree a call searched, so that {@link InstrumentedTeknonymyService} can record
+ * it without a pass of its own.
+ */
+interface CountingTeknonymyService extends ITeknonymyService {
+
+    /**
+     * Method to get a Person Teknonymy Name, counting what the search visits.
+     * @param person person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     *                to count nothing
+     * @return String which is the Teknonymy Name
+     */
+    String getTeknonymy(Person person, TraversalCounter counter);
+
+    /**
+     * What the searches of one or more calls visited. Not thread-safe.
+     */
+    final class TraversalCounter {
+
+        private long personsVisited;
+        private int maxDepth;
+        private int maxFanOut;
+
+        /**
+         * Records a search, or part of one.
+         * @param personsVisited number of persons visited, the root included
+         * @param maxDepth depth of the deepest person visited, relative to the root ('0' if the root has no children)
+         * @param maxFanOut largest number of children of a person visited
+         */
+        void record(long personsVisited, int maxDepth, int maxFanOut) {
+            this.personsVisited += personsVisited;
+            this.maxDepth = Math.max(this.maxDepth, maxDepth);
+            this.maxFanOut = Math.max(this.maxFanOut, maxFanOut);
+        }
+
+        /**
+         * @return number of persons visited
+         */
+        long personsVisited() {
+            return personsVisited;
+        }
+
+        /**
+         * @return depth of the deepest person visited
+         */
+        int maxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @return largest number of children of a person visited
+         */
+        int maxFanOut() {
+            return maxFanOut;
+        }
+    }
+}
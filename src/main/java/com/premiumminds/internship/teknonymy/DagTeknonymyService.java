@@ -0,0 +1,222 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.TeknonymyService.PersonDepth;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Teknonymy for family graphs where a person may be the child of more than one person (pedigree collapse), e.g. a
+ * child that is in the 'children' of both parents, or descendants of cousin marriages.
+ *
+ * The other engines see such a graph as a tree, so a shared subtree is searched once for every path that reaches it,
+ * which grows exponentially with the number of shared generations. Here, the result of every person with children is
+ * memoized by identity, so each person is searched only once. The memo is kept between calls, so later queries on the
+ * same graph reuse it. On plain trees, the results are the same as the other engines'.
+ *
+ * The memo is bounded: it holds two generations of at most 'memoCapacity' entries each. When the current generation
+ * is full, it becomes the old one and the previous old one is dropped. Entries found in the old generation are moved
+ * back to the current one, so the results that are still being used survive.
+ *
+ * The memo assumes that the graph does not change. If it does, call {@link #clear()}. An instance of this class must
+ * not be used by more than one thread at a time.
+ */
+class DagTeknonymyService implements ITeknonymyService {
+
+    static final int DEFAULT_MEMO_CAPACITY = 1 << 20;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int memoCapacity;
+    private Map<Person, PersonDepth> memo = new IdentityHashMap<>();
+    private Map<Person, PersonDepth> oldMemo = new IdentityHashMap<>();
+
+    // Entry 'i' of each array belongs to the person at generation 'i' of the current path.
+    private Person[] persons = new Person[INITIAL_CAPACITY];
+    private int[] nextChild = new int[INITIAL_CAPACITY]; // Next child to search
+    private Person[] oldestDescendants = new Person[INITIAL_CAPACITY]; // Best candidate of the children searched so far
+    private int[] depths = new int[INITIAL_CAPACITY]; // Depth of the best candidate, relative to the bottom of the tree
+
+    DagTeknonymyService() {
+        this(DEFAULT_MEMO_CAPACITY);
+    }
+
+    /**
+     * @param memoCapacity maximum number of results in each of the two generations of the memo
+     */
+    DagTeknonymyService(int memoCapacity) {
+        if (memoCapacity < 1)
+            throw new IllegalArgumentException("memoCapacity must be positive: " + memoCapacity);
+        this.memoCapacity = memoCapacity;
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        PersonDepth pd = search(person);
+        return TeknonymyService.buildTeknonymy(person, pd.person(), pd.depth());
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     * Calls are run one at a time, so that all of them share the memo.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                return getTeknonymy(person);
+            }
+        });
+    }
+
+    /**
+     * Method to get the 'k' oldest of the farthest descendants of a person. A descendant reached by more than one path
+     * is returned once, at their farthest generation, and is only searched again from a deeper path. Subtrees that are
+     * not deep enough are skipped, using the memoized results.
+     *
+     * @param person person
+     * @param k maximum number of descendants
+     * @return List with up to 'k' distinct descendants, deepest first and then oldest first
+     */
+    @Override
+    public List<Person> getOldestFarthestDescendants(Person person, int k) {
+        return DescendantQueries.getOldestFarthestDescendants(person, DescendantQueries.PERSONS, k,
+                this::getGenerations, true);
+    }
+
+    /**
+     * Method to get the oldest descendant of a person in a given generation. A descendant is in that generation if one
+     * of their paths from 'person' has that number of generations.
+     *
+     * @param person person
+     * @param generation generation below 'person': '1' for children, '2' for grandchildren, and so on
+     * @return oldest descendant in 'generation', or null if there is none
+     */
+    @Override
+    public Person getOldestDescendantAtGeneration(Person person, int generation) {
+        return DescendantQueries.getOldestDescendantAtGeneration(person, DescendantQueries.PERSONS, generation,
+                this::getGenerations, true);
+    }
+
+    /**
+     * @param person person
+     * @return number of generations below 'person', on their farthest path ('0' if they have no children)
+     */
+    public int getGenerations(Person person) {
+        return person.children() == null ? 0 : search(person).depth();
+    }
+
+    /**
+     * Forgets every memoized result. Must be called if the graph changes.
+     */
+    public void clear() {
+        memo = new IdentityHashMap<>();
+        oldMemo = new IdentityHashMap<>();
+    }
+
+    /**
+     * @return number of memoized results
+     */
+    public int memoSize() {
+        return memo.size() + oldMemo.size();
+    }
+
+    /**
+     * Same search as {@link StackTeknonymyService}, but persons that were already searched are not searched again.
+     */
+    private PersonDepth search(Person person) {
+        if (person.children() == null) // Leaf
+            return new PersonDepth(person, 0);
+        PersonDepth known = lookup(person);
+        if (known != null)
+            return known;
+
+        int top = 0;
+        push(top, person);
+
+        while (true) {
+            Person current = persons[top];
+            Person[] children = current.children();
+
+            if (children != null && nextChild[top] < children.length) { // Downwards: search the next child
+                Person child = children[nextChild[top]++];
+                PersonDepth childResult;
+                if (child.children() == null) // Leaves are not memoized, their result is trivial
+                    merge(top, child, 0);
+                else if ((childResult = lookup(child)) != null) // Already searched
+                    merge(top, childResult.person(), childResult.depth());
+                else {
+                    if (++top == persons.length)
+                        grow();
+                    push(top, child);
+                }
+                continue;
+            }
+
+            // Upwards: every child was searched, so the result of 'current' is known
+            PersonDepth result = new PersonDepth(oldestDescendants[top], depths[top] + 1);
+            store(current, result);
+            persons[top] = null; // Do not keep references to the graph after the call
+            oldestDescendants[top] = null;
+
+            if (top == 0)
+                return result;
+            merge(--top, result.person(), result.depth());
+        }
+    }
+
+    /**
+     * Merges the result of a child into the result of the person at 'index'.
+     */
+    private void merge(int index, Person oldestDescendant, int depth) {
+        // The chosen child should be the oldest of the deepest.
+        if (oldestDescendants[index] == null || depths[index] < depth
+                || (depths[index] == depth && oldestDescendant.isOlder(oldestDescendants[index]))) {
+            oldestDescendants[index] = oldestDescendant;
+            depths[index] = depth;
+        }
+    }
+
+    private PersonDepth lookup(Person person) {
+        PersonDepth pd = memo.get(person);
+        if (pd == null) {
+            pd = oldMemo.remove(person);
+            if (pd != null)
+                store(person, pd);
+        }
+        return pd;
+    }
+
+    private void store(Person person, PersonDepth pd) {
+        if (memo.size() >= memoCapacity) {
+            oldMemo = memo;
+            memo = new IdentityHashMap<>();
+        }
+        memo.put(person, pd);
+    }
+
+    private void push(int index, Person person) {
+        persons[index] = person;
+        nextChild[index] = 0;
+        oldestDescendants[index] = null;
+        depths[index] = -1;
+    }
+
+    private void grow() {
+        int capacity = persons.length * 2;
+        persons = Arrays.copyOf(persons, capacity);
+        nextChild = Arrays.copyOf(nextChild, capacity);
+        oldestDescendants = Arrays.copyOf(oldestDescendants, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+}
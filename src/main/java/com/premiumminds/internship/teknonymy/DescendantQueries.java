@@ -0,0 +1,305 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * Descendant queries other than the Teknonymy: the 'k' oldest of the farthest descendants of a person, and the oldest
+ * descendant of a given generation.
+ *
+ * Descendants are ranked like the Teknonymy chooses them: deeper first, then older, then first in depth-first order.
+ * So the first of the 'k' oldest farthest descendants is always the descendant of the Teknonymy.
+ *
+ * Both queries are a depth-first search (with an explicit stack) for the best descendants between two generations,
+ * which never goes below the deepest of them. The best 'k' candidates are kept in a bounded heap, so memory is
+ * O(k + height of the tree). If the number of generations below each person is known (e.g. from a
+ * {@link TeknonymyIndex}), a child is only searched if their subtree can still improve the result: if it reaches the
+ * shallowest generation searched and, once the heap is full, the generation of its worst candidate. On trees where a
+ * few lineages are much deeper than the rest, only those lineages are visited.
+ *
+ * The search walks {@link Person#children()} by default, or the links of another representation of the tree (see
+ * {@link Links}). In a pedigree with shared descendants (see {@link DagTeknonymyService}), the search can be asked to
+ * return each descendant once: a descendant is then ranked at their farthest generation, and a person is only searched
+ * again if a path reaches them deeper than before.
+ */
+final class DescendantQueries {
+
+    /**
+     * Links of a family tree that is not walked through {@link Person#children()}.
+     * @param <N> type of the nodes of the tree
+     */
+    interface Links<N> {
+
+        /**
+         * @param node node of the tree
+         * @return person of 'node'
+         */
+        Person person(N node);
+
+        /**
+         * @param node node of the tree
+         * @return number of children of 'node'
+         */
+        int childCount(N node);
+
+        /**
+         * @param node node of the tree
+         * @param index index of the child, from 0 to 'childCount(node) - 1', in order
+         * @return child of 'node'
+         */
+        N child(N node, int index);
+    }
+
+    /**
+     * Links of a tree of {@link Person} records.
+     */
+    static final Links<Person> PERSONS = new Links<>() {
+        @Override
+        public Person person(Person node) {
+            return node;
+        }
+
+        @Override
+        public int childCount(Person node) {
+            return node.children() == null ? 0 : node.children().length;
+        }
+
+        @Override
+        public Person child(Person node, int index) {
+            return node.children()[index];
+        }
+    };
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private DescendantQueries() {
+    }
+
+    /**
+     * @param person person
+     * @param generation generation below 'person': '1' for children, '2' for grandchildren, and so on
+     * @param generations number of generations below each person, or null if unknown
+     * @return oldest descendant of 'person' in 'generation', or null if there is none. 'person' if 'generation' is 0.
+     */
+    static Person getOldestDescendantAtGeneration(Person person, int generation, ToIntFunction<Person> generations) {
+        return getOldestDescendantAtGeneration(person, PERSONS, generation, generations, false);
+    }
+
+    /**
+     * @param node node of the person
+     * @param links links of the tree of 'node'
+     * @param generation generation below the person: '1' for children, '2' for grandchildren, and so on
+     * @param generations number of generations below each node, or null if unknown
+     * @param distinct true if a descendant may be reached by more than one path. A descendant is in 'generation' if
+     *                 one of their paths has that number of generations.
+     * @return oldest descendant of the person in 'generation', or null if there is none. The person if 'generation'
+     *         is 0.
+     */
+    static <N> Person getOldestDescendantAtGeneration(N node, Links<N> links, int generation,
+                                                      ToIntFunction<N> generations, boolean distinct) {
+        if (generation < 0)
+            throw new IllegalArgumentException("generation must not be negative: " + generation);
+        if (generation == 0)
+            return links.person(node);
+
+        BoundedHeap best = new BoundedHeap(1, distinct);
+        search(node, links, generation, generation, generations, distinct, best);
+        return best.isEmpty() ? null : best.sorted().get(0);
+    }
+
+    /**
+     * @param person person
+     * @param k maximum number of descendants
+     * @param generations number of generations below each person, or null if unknown
+     * @return up to 'k' descendants of 'person', deepest first and then oldest first
+     */
+    static List<Person> getOldestFarthestDescendants(Person person, int k, ToIntFunction<Person> generations) {
+        return getOldestFarthestDescendants(person, PERSONS, k, generations, false);
+    }
+
+    /**
+     * @param node node of the person
+     * @param links links of the tree of 'node'
+     * @param k maximum number of descendants
+     * @param generations number of generations below each node, or null if unknown
+     * @param distinct true if a descendant may be reached by more than one path. Each descendant is then returned
+     *                 once, ranked at their farthest generation.
+     * @return up to 'k' descendants of the person, deepest first and then oldest first
+     */
+    static <N> List<Person> getOldestFarthestDescendants(N node, Links<N> links, int k, ToIntFunction<N> generations,
+                                                         boolean distinct) {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        if (k == 0)
+            return List.of();
+
+        if (generations == null) { // Single search of the whole tree
+            BoundedHeap best = new BoundedHeap(k, distinct);
+            search(node, links, 1, Integer.MAX_VALUE, null, distinct, best);
+            return best.sorted();
+        }
+
+        // Searches from the deepest generation, including twice as many generations each time, until there are 'k'
+        // descendants, so that there are at most log2(height) searches
+        int height = generations.applyAsInt(node);
+        BoundedHeap best = new BoundedHeap(k, distinct);
+        for (int span = 1; height > 0; span *= 2) {
+            int shallowest = Math.max(1, height - span + 1);
+            best = new BoundedHeap(k, distinct);
+            search(node, links, shallowest, height, generations, distinct, best);
+            if (best.isFull() || shallowest == 1)
+                break;
+        }
+        return best.sorted();
+    }
+
+    /**
+     * Offers every descendant of 'root' from generation 'shallowest' to 'deepest' to 'best', in depth-first order.
+     * Children are skipped if their subtree cannot reach 'shallowest' or, once 'best' is full, the generation of its
+     * worst candidate. If 'distinct', children are also skipped if they were already reached at least as deep, since
+     * their subtree was then already searched from there.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> void search(N root, Links<N> links, int shallowest, int deepest, ToIntFunction<N> generations,
+                                   boolean distinct, BoundedHeap best) {
+        if (generations != null && generations.applyAsInt(root) < shallowest)
+            return;
+
+        Map<N, Integer> reached = distinct ? new IdentityHashMap<>() : null; // Deepest generation of each node
+        Object[] nodes = new Object[Math.min(deepest, INITIAL_CAPACITY)];
+        int[] nextChild = new int[nodes.length];
+        nodes[0] = root;
+        int top = 0;
+        long sequence = 0;
+        while (top >= 0) {
+            N node = (N) nodes[top];
+            if (nextChild[top] == links.childCount(node)) { // Upwards: every child was searched
+                nextChild[top--] = 0;
+                continue;
+            }
+
+            N child = links.child(node, nextChild[top]++);
+            int depth = top + 1;
+            if (generations != null) {
+                int reach = depth + generations.applyAsInt(child);
+                if (reach < shallowest || (best.isFull() && reach < best.worstDepth()))
+                    continue; // Pruned
+            }
+            if (reached != null) {
+                Integer previous = reached.get(child);
+                if (previous != null && previous >= depth)
+                    continue; // Already searched from at least as deep
+                reached.put(child, depth);
+            }
+            if (depth >= shallowest)
+                best.offer(links.person(child), depth, sequence++);
+            if (depth < deepest) { // Downwards
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, (int) Math.min(deepest, nodes.length * 2L));
+                    nextChild = Arrays.copyOf(nextChild, nodes.length);
+                }
+                nodes[depth] = child;
+                top = depth;
+            }
+        }
+    }
+
+    // ===== HEAP =====
+
+    /**
+     * @param person descendant
+     * @param depth generation of 'person', relative to the person of the query
+     * @param sequence position of 'person' in depth-first order, to break ties
+     */
+    private record Candidate(Person person, int depth, long sequence) {
+    }
+
+    /**
+     * Deeper first, then older, then first in depth-first order.
+     */
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::depth).reversed()
+            .thenComparing(candidate -> candidate.person().dateOfBirth())
+            .thenComparingLong(Candidate::sequence);
+
+    /**
+     * Keeps the 'capacity' best candidates offered to it. The worst of them is at the head, so a new candidate only
+     * has to be compared with it. If 'distinct', a person offered again (always deeper) replaces their candidate.
+     */
+    private static final class BoundedHeap {
+        private final int capacity;
+        private final PriorityQueue<Candidate> heap;
+        private final Map<Person, Candidate> candidates; // Null unless 'distinct'
+
+        private BoundedHeap(int capacity, boolean distinct) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(Math.min(capacity, 1024), BEST_FIRST.reversed());
+            this.candidates = distinct ? new IdentityHashMap<>() : null;
+        }
+
+        private void offer(Person person, int depth, long sequence) {
+            if (candidates != null) {
+                Candidate previous = candidates.remove(person);
+                if (previous != null)
+                    heap.remove(previous);
+            }
+
+            if (heap.size() < capacity)
+                add(new Candidate(person, depth, sequence));
+            else if (isBetter(person, depth, sequence, heap.peek())) {
+                Candidate worst = heap.poll();
+                if (candidates != null)
+                    candidates.remove(worst.person());
+                add(new Candidate(person, depth, sequence));
+            }
+        }
+
+        private void add(Candidate candidate) {
+            heap.add(candidate);
+            if (candidates != null)
+                candidates.put(candidate.person(), candidate);
+        }
+
+        /**
+         * Same as {@link #BEST_FIRST}, without creating a candidate for every person that is offered.
+         */
+        private static boolean isBetter(Person person, int depth, long sequence, Candidate worst) {
+            if (depth != worst.depth())
+                return depth > worst.depth();
+            int byAge = person.dateOfBirth().compareTo(worst.person().dateOfBirth());
+            return byAge != 0 ? byAge < 0 : sequence < worst.sequence();
+        }
+
+        private boolean isEmpty() {
+            return heap.isEmpty();
+        }
+
+        private boolean isFull() {
+            return heap.size() == capacity;
+        }
+
+        /**
+         * @return generation of the worst candidate. Only valid if the heap is not empty.
+         */
+        private int worstDepth() {
+            return heap.peek().depth();
+        }
+
+        /**
+         * @return the candidates, best first
+         */
+        private List<Person> sorted() {
+            Candidate[] candidates = heap.toArray(new Candidate[0]);
+            Arrays.sort(candidates, BEST_FIRST);
+            List<Person> persons = new ArrayList<>(candidates.length);
+            for (Candidate candidate : candidates)
+                persons.add(candidate.person());
+            return persons;
+        }
+    }
+}
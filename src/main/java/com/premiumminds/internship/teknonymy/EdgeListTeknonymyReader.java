@@ -0,0 +1,370 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Computes the Teknonymy of every person of a flat export, without building {@link Person} objects.
+ *
+ * The export is a CSV file with one person per line: 'id,parentId,name,sex,dateOfBirth', where 'parentId' is empty
+ * for roots and 'dateOfBirth' is an ISO-8601 local date-time (e.g. 2000-01-31T10:15:30). An optional first line
+ * starting with 'id,' is a header. Fields cannot contain commas.
+ *
+ * Rows must be in depth-first pre-order: every person comes after their parent, and the rows of a subtree are
+ * consecutive. That way, a subtree is complete as soon as a row that is not part of it shows up, and only the persons
+ * of the current path (the open subtrees) have to be kept in memory. Each one keeps the result of the children
+ * completed so far, exactly like the explicit stack of {@link StackTeknonymyService}, and open persons are found by
+ * id through a primitive hash map. For the same reason, a duplicated id is only rejected if the first person with that id
+ * is still open, i.e. is on the current path or is the sibling subtree just before.
+ *
+ * The Teknonymy of a person is handed out as soon as their subtree is complete, so descendants always come before
+ * their ancestors. Instances are not thread-safe, but can read many files one after the other.
+ */
+final class EdgeListTeknonymyReader {
+
+    /**
+     * Receives the Teknonymy of each person.
+     */
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long id, String name, String teknonymy);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ByteBuffer buffer;
+    private final int[] commas = new int[4];
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long lineNumber;
+
+    // Entry 'i' of each array belongs to the person at generation 'i' of the current path.
+    private int top = -1;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private char[] sexes = new char[INITIAL_CAPACITY];
+    private long[] birthSeconds = new long[INITIAL_CAPACITY];
+    private int[] birthNanos = new int[INITIAL_CAPACITY];
+    // Oldest of the farthest descendants of the children completed so far, and their depth. Depth -1 means none.
+    private String[] descendantNames = new String[INITIAL_CAPACITY];
+    private long[] descendantSeconds = new long[INITIAL_CAPACITY];
+    private int[] descendantNanos = new int[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+
+    private final LongIntMap openPositions = new LongIntMap(); // Id of each open person -> index in the arrays above
+
+    EdgeListTeknonymyReader() {
+        this(1 << 16);
+    }
+
+    /**
+     * @param bufferSize size of the read buffer, in bytes
+     */
+    EdgeListTeknonymyReader(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Reads the export in 'file'.
+     * @param file CSV file
+     * @param consumer receives the Teknonymy of each person
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    void read(Path file, Consumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(channel, consumer);
+        }
+    }
+
+    /**
+     * Reads the export from 'channel', until its end.
+     * @param channel channel with the CSV content
+     * @param consumer receives the Teknonymy of each person
+     * @throws IOException if the channel cannot be read or its content is malformed
+     */
+    void read(ReadableByteChannel channel, Consumer consumer) throws IOException {
+        top = -1;
+        lineLength = 0;
+        lineNumber = 0;
+        openPositions.clear();
+
+        try {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n')
+                        endLine(consumer);
+                    else {
+                        if (lineLength == line.length)
+                            line = Arrays.copyOf(line, line.length * 2);
+                        line[lineLength++] = b;
+                    }
+                }
+                buffer.clear();
+            }
+            endLine(consumer);
+
+            // End of the export: every open subtree is complete
+            while (top >= 0)
+                complete(consumer);
+        } finally {
+            Arrays.fill(names, null); // Do not keep the names of the last export
+            Arrays.fill(descendantNames, null);
+        }
+    }
+
+    // ===== PARSING =====
+
+    private void endLine(Consumer consumer) throws IOException {
+        lineNumber++;
+        int length = lineLength;
+        lineLength = 0;
+        if (length > 0 && line[length - 1] == '\r')
+            length--;
+        if (length == 0 || (lineNumber == 1 && startsWith(line, length, "id,")))
+            return;
+
+        int found = 0;
+        for (int i = 0; i < length && found < 5; i++)
+            if (line[i] == ',') {
+                if (found == 4)
+                    throw malformed("too many fields");
+                commas[found++] = i;
+            }
+        if (found != 4)
+            throw malformed("expected 5 fields");
+
+        long id = parseLong(0, commas[0]);
+        boolean isRoot = commas[1] == commas[0] + 1;
+        long parentId = isRoot ? 0 : parseLong(commas[0] + 1, commas[1]);
+        String name = new String(line, commas[1] + 1, commas[2] - commas[1] - 1, StandardCharsets.UTF_8);
+        if (commas[3] != commas[2] + 2)
+            throw malformed("sex must be a single character");
+        char sex = (char) line[commas[2] + 1];
+
+        LocalDateTime dateOfBirth;
+        try {
+            dateOfBirth = LocalDateTime.parse(
+                    new String(line, commas[3] + 1, length - commas[3] - 1, StandardCharsets.US_ASCII));
+        } catch (DateTimeParseException e) {
+            throw malformed("invalid date of birth");
+        }
+
+        // Before completing siblings, which would forget their ids. Ids of completed subtrees are not kept, so only
+        // a duplicate of an open person (an ancestor or a sibling subtree on the current path) is found.
+        if (openPositions.get(id) >= 0)
+            throw malformed("duplicated id " + id);
+
+        // Every open subtree that is not an ancestor of this person is complete
+        int parentPosition = -1;
+        if (!isRoot) {
+            parentPosition = openPositions.get(parentId);
+            if (parentPosition < 0)
+                throw malformed("parent " + parentId + " is not an open ancestor, rows must be in depth-first order");
+        }
+        while (top > parentPosition)
+            complete(consumer);
+
+        open(id, name, sex, dateOfBirth.toEpochSecond(ZoneOffset.UTC), dateOfBirth.getNano());
+    }
+
+    private long parseLong(int from, int to) throws IOException {
+        if (from == to)
+            throw malformed("empty id");
+        boolean negative = line[from] == '-';
+        int start = negative ? from + 1 : from;
+        if (start == to)
+            throw malformed("invalid id");
+
+        // Accumulated as a negative number, which also holds Long.MIN_VALUE
+        long value = 0;
+        for (int i = start; i < to; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw malformed("invalid id");
+            if (value < (Long.MIN_VALUE + digit) / 10)
+                throw malformed("id out of range");
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Long.MIN_VALUE)
+            throw malformed("id out of range");
+        return negative ? value : -value;
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, String prefix) {
+        if (length < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++)
+            if (bytes[i] != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed row at line " + lineNumber + ": " + reason);
+    }
+
+    // ===== OPEN SUBTREES =====
+
+    private void open(long id, String name, char sex, long birthSecond, int birthNano) {
+        if (++top == ids.length)
+            grow();
+        ids[top] = id;
+        names[top] = name;
+        sexes[top] = sex;
+        birthSeconds[top] = birthSecond;
+        birthNanos[top] = birthNano;
+        descendantNames[top] = null;
+        depths[top] = -1;
+        openPositions.put(id, top);
+    }
+
+    /**
+     * Closes the subtree at the top: hands out its Teknonymy and merges its result into its parent.
+     */
+    private void complete(Consumer consumer) {
+        String descendantName;
+        long descendantSecond;
+        int descendantNano;
+        int depth;
+        if (depths[top] < 0) { // Leaf
+            descendantName = names[top];
+            descendantSecond = birthSeconds[top];
+            descendantNano = birthNanos[top];
+            depth = 0;
+        } else {
+            descendantName = descendantNames[top];
+            descendantSecond = descendantSeconds[top];
+            descendantNano = descendantNanos[top];
+            depth = depths[top] + 1;
+        }
+
+        consumer.accept(ids[top], names[top], depth == 0 ? ""
+                : TeknonymyService.buildTeknonymy(Person.getParenthood(sexes[top]), descendantName, depth));
+        openPositions.remove(ids[top]);
+        names[top] = null;
+        descendantNames[top] = null;
+        top--;
+
+        // The chosen child should be the oldest of the deepest.
+        if (top >= 0 && (depths[top] < depth || (depths[top] == depth
+                && (descendantSecond < descendantSeconds[top]
+                || (descendantSecond == descendantSeconds[top] && descendantNano < descendantNanos[top]))))) {
+            descendantNames[top] = descendantName;
+            descendantSeconds[top] = descendantSecond;
+            descendantNanos[top] = descendantNano;
+            depths[top] = depth;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        sexes = Arrays.copyOf(sexes, capacity);
+        birthSeconds = Arrays.copyOf(birthSeconds, capacity);
+        birthNanos = Arrays.copyOf(birthNanos, capacity);
+        descendantNames = Arrays.copyOf(descendantNames, capacity);
+        descendantSeconds = Arrays.copyOf(descendantSeconds, capacity);
+        descendantNanos = Arrays.copyOf(descendantNanos, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+
+    /**
+     * Open addressing hash map from long to non-negative int, without boxing. Uses linear probing and backward shift
+     * deletion, so there are no tombstones.
+     */
+    static final class LongIntMap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        /**
+         * @return value of 'key', or -1 if there is none
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask)
+                if (keys[slot] == key)
+                    return values[slot];
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length)
+                resize(keys.length * 2);
+
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            if (!used[slot])
+                size++;
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            if (!used[slot])
+                return;
+
+            // Shift back the following entries that would no longer be reachable
+            int empty = slot;
+            for (int next = (empty + 1) & mask; used[next]; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                // Move 'next' to 'empty' if 'home' is not in the cyclic range (empty, next]
+                if (((next - home) & mask) >= ((next - empty) & mask)) {
+                    keys[empty] = keys[next];
+                    values[empty] = values[next];
+                    empty = next;
+                }
+            }
+            used[empty] = false;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldUsed[i])
+                    put(oldKeys[i], oldValues[i]);
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
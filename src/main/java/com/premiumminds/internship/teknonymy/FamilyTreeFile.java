@@ -0,0 +1,278 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file format for family trees, read through memory mapping.
+ *
+ * The file holds the same arrays as a {@link CompactFamilyTree}, so a tree can be queried straight from the mapped
+ * file, without creating {@link Person} objects or reading the whole file into the heap. Trees bigger than the heap
+ * can be queried, and opening a file needs no deserialization.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header          magic "TKNY" (int), version (int), flags (int), size (int), nameCount (int), nameBytes (int),
+ *                 content hash (long), content hash with names (long)
+ * birth seconds   long[size]
+ * child offsets   int[size + 1], children of 'i' are [childOffsets[i], childOffsets[i + 1])
+ * birth nanos     int[size], only if flags has HAS_NANOS
+ * name indexes    int[size]
+ * name offsets    int[nameCount + 1], name 'j' is the UTF-8 bytes [nameOffsets[j], nameOffsets[j + 1])
+ * sexes           byte[size]
+ * name pool       byte[nameBytes]
+ * </pre>
+ *
+ * Each section is mapped on its own, so a section (not the whole file) is limited to 2 GB, which means up to about 268
+ * million persons.
+ *
+ * The content hashes are the ones of {@link TeknonymySnapshot#contentHash(ICompactFamilyTree, boolean)}, without and
+ * with the names and sexes. They are computed once, when the file is written, so that a snapshot can be checked
+ * against the tree without reading it.
+ */
+final class FamilyTreeFile {
+
+    static final int MAGIC = 0x544B4E59; // "TKNY"
+    static final int VERSION = 2;
+    static final int HAS_NANOS = 1;
+    static final int HEADER_BYTES = 40;
+
+    private FamilyTreeFile() {
+    }
+
+    /**
+     * Writes the tree which root is 'root' to 'file'.
+     * @param root root of the family tree
+     * @param file file to write to. Replaced if it already exists.
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Person root, Path file) throws IOException {
+        write(CompactFamilyTree.of(root), file);
+    }
+
+    /**
+     * Writes 'tree' to 'file'.
+     * @param tree family tree
+     * @param file file to write to. Replaced if it already exists.
+     * @throws IOException if the file cannot be written
+     */
+    static void write(ICompactFamilyTree tree, Path file) throws IOException {
+        int size = tree.size();
+
+        // Name pool
+        Map<String, Integer> nameIndexByName = new HashMap<>();
+        List<byte[]> names = new ArrayList<>();
+        int[] nameIndexes = new int[size];
+        boolean hasNanos = false;
+        for (int i = 0; i < size; i++) {
+            nameIndexes[i] = nameIndexByName.computeIfAbsent(tree.name(i), name -> {
+                names.add(name.getBytes(StandardCharsets.UTF_8));
+                return names.size() - 1;
+            });
+            hasNanos |= tree.birthNano(i) != 0;
+        }
+        long nameBytes = 0;
+        for (byte[] name : names)
+            nameBytes += name.length;
+        if (nameBytes > Integer.MAX_VALUE)
+            throw new IOException("Name pool is too big: " + nameBytes + " bytes");
+        long contentHash = TeknonymySnapshot.contentHash(tree, false);
+        long contentHashWithNames = TeknonymySnapshot.contentHash(tree, true);
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hasNanos ? HAS_NANOS : 0);
+            out.writeInt(size);
+            out.writeInt(names.size());
+            out.writeInt((int) nameBytes);
+            out.writeLong(contentHash);
+            out.writeLong(contentHashWithNames);
+
+            for (int i = 0; i < size; i++)
+                out.writeLong(tree.birthEpochSecond(i));
+            // Children are numbered in breadth-first order, so the children of 'i' come right after those of 'i - 1'
+            int childOffset = 1;
+            for (int i = 0; i < size; i++) {
+                out.writeInt(childOffset);
+                childOffset += tree.childCount(i);
+            }
+            out.writeInt(childOffset);
+            if (hasNanos)
+                for (int i = 0; i < size; i++)
+                    out.writeInt(tree.birthNano(i));
+            for (int i = 0; i < size; i++)
+                out.writeInt(nameIndexes[i]);
+
+            int offset = 0;
+            for (byte[] name : names) {
+                out.writeInt(offset);
+                offset += name.length;
+            }
+            out.writeInt(offset);
+
+            for (int i = 0; i < size; i++)
+                out.writeByte(tree.sex(i));
+            for (byte[] name : names)
+                out.write(name);
+        }
+    }
+
+    /**
+     * Maps a family tree file.
+     * @param file file written by 'write'
+     * @return the family tree. Its data is read from the file on demand.
+     * @throws IOException if the file cannot be read or is not a family tree file
+     */
+    static MappedFamilyTree open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES)
+                throw new IOException("Not a family tree file: " + file);
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a family tree file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported family tree file version " + version + ": " + file);
+            boolean hasNanos = (header.getInt() & HAS_NANOS) != 0;
+            int size = header.getInt();
+            int nameCount = header.getInt();
+            int nameBytes = header.getInt();
+            long contentHash = header.getLong();
+            long contentHashWithNames = header.getLong();
+
+            long expectedSize = HEADER_BYTES + 8L * size + 4L * (size + 1) + (hasNanos ? 4L * size : 0) + 4L * size
+                    + 4L * (nameCount + 1) + size + nameBytes;
+            if (size < 1 || nameCount < 0 || nameBytes < 0 || fileSize != expectedSize)
+                throw new IOException("Corrupted family tree file: " + file);
+
+            Sections sections = new Sections(channel, HEADER_BYTES);
+            LongBuffer birthEpochSeconds = sections.next(8L * size).asLongBuffer();
+            IntBuffer childOffsets = sections.next(4L * (size + 1)).asIntBuffer();
+            IntBuffer birthNanos = hasNanos ? sections.next(4L * size).asIntBuffer() : null;
+            IntBuffer nameIndexes = sections.next(4L * size).asIntBuffer();
+            IntBuffer nameOffsets = sections.next(4L * (nameCount + 1)).asIntBuffer();
+            ByteBuffer sexes = sections.next(size);
+            ByteBuffer namePool = sections.next(nameBytes);
+
+            return new MappedFamilyTree(size, birthEpochSeconds, childOffsets, birthNanos, nameIndexes, nameOffsets,
+                    sexes, namePool, contentHash, contentHashWithNames);
+        }
+    }
+
+    /**
+     * Maps consecutive sections of a file.
+     */
+    private static final class Sections {
+        private final FileChannel channel;
+        private long position;
+
+        private Sections(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        private ByteBuffer next(long length) throws IOException {
+            ByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return section;
+        }
+    }
+
+    /**
+     * Family tree read straight from a mapped {@link FamilyTreeFile}.
+     * The buffers are only read with absolute gets, so it can be used by many threads at the same time.
+     */
+    static final class MappedFamilyTree implements ICompactFamilyTree {
+
+        private final int size;
+        private final LongBuffer birthEpochSeconds;
+        private final IntBuffer childOffsets;
+        private final IntBuffer birthNanos;
+        private final IntBuffer nameIndexes;
+        private final IntBuffer nameOffsets;
+        private final ByteBuffer sexes;
+        private final ByteBuffer namePool;
+        private final long contentHash;
+        private final long contentHashWithNames;
+
+        private MappedFamilyTree(int size, LongBuffer birthEpochSeconds, IntBuffer childOffsets, IntBuffer birthNanos,
+                                 IntBuffer nameIndexes, IntBuffer nameOffsets, ByteBuffer sexes, ByteBuffer namePool,
+                                 long contentHash, long contentHashWithNames) {
+            this.size = size;
+            this.birthEpochSeconds = birthEpochSeconds;
+            this.childOffsets = childOffsets;
+            this.birthNanos = birthNanos;
+            this.nameIndexes = nameIndexes;
+            this.nameOffsets = nameOffsets;
+            this.sexes = sexes;
+            this.namePool = namePool;
+            this.contentHash = contentHash;
+            this.contentHashWithNames = contentHashWithNames;
+        }
+
+        /**
+         * Content hash stored in the file, without reading the tree.
+         * @param withTeknonymies true for the hash with the sexes and names
+         * @return the same as {@link TeknonymySnapshot#contentHash(ICompactFamilyTree, boolean)} on this tree
+         */
+        public long contentHash(boolean withTeknonymies) {
+            return withTeknonymies ? contentHashWithNames : contentHash;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int firstChild(int person) {
+            return childOffsets.get(person);
+        }
+
+        @Override
+        public int childCount(int person) {
+            return childOffsets.get(person + 1) - childOffsets.get(person);
+        }
+
+        @Override
+        public long birthEpochSecond(int person) {
+            return birthEpochSeconds.get(person);
+        }
+
+        @Override
+        public int birthNano(int person) {
+            return birthNanos == null ? 0 : birthNanos.get(person);
+        }
+
+        @Override
+        public char sex(int person) {
+            return (char) sexes.get(person);
+        }
+
+        @Override
+        public String name(int person) {
+            int nameIndex = nameIndexes.get(person);
+            int start = nameOffsets.get(nameIndex);
+            byte[] name = new byte[nameOffsets.get(nameIndex + 1) - start];
+            namePool.get(start, name);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Family tree whose persons are fetched on demand, e.g. from a file or a database, instead of being all in memory as
+ * {@link Person} records.
+ *
+ * Each person is identified by a handle of type 'H' (the person itself, an index, a primary key, ...). Children are
+ * only fetched when the traversal reaches them, through the iterator returned by {@link #children(Object)}, so a
+ * traversal only keeps one iterator per generation of the current path.
+ *
+ * @param <H> type of the handles
+ */
+interface FamilyTreeSource<H> {
+
+    /**
+     * @return handle of the root of the tree
+     */
+    H root();
+
+    /**
+     * @param person handle of a person
+     * @return iterator over the handles of the children of 'person', in order. Empty if they have no children.
+     */
+    Iterator<H> children(H person);
+
+    /**
+     * Checks if 'person' is older than 'other'.
+     * @param person handle of a person
+     * @param other handle of the person to compare with
+     * @return true if 'person' is older than 'other', false otherwise.
+     */
+    boolean isOlder(H person, H other);
+
+    /**
+     * @param person handle of a person
+     * @return sex of 'person', 'M' or 'F'
+     */
+    char sex(H person);
+
+    /**
+     * @param person handle of a person
+     * @return name of 'person'
+     */
+    String name(H person);
+
+    /**
+     * @param root root of a tree of {@link Person} records
+     * @return source over that tree, whose handles are the records themselves
+     */
+    static FamilyTreeSource<Person> of(Person root) {
+        return new PersonSource(root);
+    }
+
+    /**
+     * @param tree compact tree, e.g. a {@link FamilyTreeFile.MappedFamilyTree}
+     * @return source over 'tree', whose handles are the indexes of the persons
+     */
+    static FamilyTreeSource<Integer> of(ICompactFamilyTree tree) {
+        return new CompactSource(tree);
+    }
+
+    /**
+     * Source over {@link Person} records.
+     */
+    record PersonSource(Person root) implements FamilyTreeSource<Person> {
+
+        @Override
+        public Iterator<Person> children(Person person) {
+            return person.children() == null ? Collections.emptyIterator()
+                    : Arrays.asList(person.children()).iterator();
+        }
+
+        @Override
+        public boolean isOlder(Person person, Person other) {
+            return person.isOlder(other);
+        }
+
+        @Override
+        public char sex(Person person) {
+            return person.sex();
+        }
+
+        @Override
+        public String name(Person person) {
+            return person.name();
+        }
+    }
+
+    /**
+     * Source over an {@link ICompactFamilyTree}. When the tree is a file mapped in memory, the operating system only
+     * loads the pages that the traversal touches.
+     */
+    record CompactSource(ICompactFamilyTree tree) implements FamilyTreeSource<Integer> {
+
+        @Override
+        public Integer root() {
+            return tree.root();
+        }
+
+        @Override
+        public Iterator<Integer> children(Integer person) {
+            int first = tree.firstChild(person);
+            int end = first + tree.childCount(person);
+            return new Iterator<>() {
+                private int next = first;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public Integer next() {
+                    if (next >= end)
+                        throw new NoSuchElementException();
+                    return next++;
+                }
+            };
+        }
+
+        @Override
+        public boolean isOlder(Integer person, Integer other) {
+            return tree.isOlder(person, other);
+        }
+
+        @Override
+        public char sex(Integer person) {
+            return tree.sex(person);
+        }
+
+        @Override
+        public String name(Integer person) {
+            return tree.name(person);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.premiumminds.internship.teknonymy;
+
+/**
+ * Family tree where each person is identified by an index, from '0' (the root) to 'size() - 1'.
+ *
+ * Persons are numbered in breadth-first order, so the children of a person always have consecutive indexes, which
+ * are greater than the index of their parent.
+ */
+interface ICompactFamilyTree {
+
+    /**
+     * @return number of persons in the tree
+     */
+    int size();
+
+    /**
+     * @return index of the root of the tree
+     */
+    default int root() {
+        return 0;
+    }
+
+    /**
+     * @param person index of a person
+     * @return index of the first child of 'person'. Meaningless if 'person' has no children.
+     */
+    int firstChild(int person);
+
+    /**
+     * @param person index of a person
+     * @return number of children of 'person'
+     */
+    int childCount(int person);
+
+    /**
+     * @param person index of a person
+     * @return date of birth of 'person', in seconds since 1970-01-01T00:00 (UTC)
+     */
+    long birthEpochSecond(int person);
+
+    /**
+     * @param person index of a person
+     * @return nanosecond of the date of birth of 'person'
+     */
+    int birthNano(int person);
+
+    /**
+     * @param person index of a person
+     * @return sex of 'person', 'M' or 'F'
+     */
+    char sex(int person);
+
+    /**
+     * @param person index of a person
+     * @return name of 'person'
+     */
+    String name(int person);
+
+    /**
+     * Checks if 'person' is older than 'other'.
+     * @param person index of a person
+     * @param other index of the person to compare with
+     * @return true if 'person' is older than 'other', false otherwise.
+     */
+    default boolean isOlder(int person, int other) {
+        long personSecond = birthEpochSecond(person);
+        long otherSecond = birthEpochSecond(other);
+        return personSecond < otherSecond || (personSecond == otherSecond && birthNano(person) < birthNano(other));
+    }
+}
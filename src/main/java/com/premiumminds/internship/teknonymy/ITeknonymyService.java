@@ -1,6 +1,10 @@
 package com.premiumminds.internship.teknonymy;
 
-import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 interface ITeknonymyService {
   /**
@@ -10,4 +14,63 @@ interface ITeknonymyService {
    * @return String which is the Teknonymy Name 
    */
   public String getTeknonymy(Person person);
+
+  /**
+   * Method to get a Person Teknonymy Name without blocking the caller.
+   * By default, 'getTeknonymy' runs on the common fork/join pool, so implementations that are not thread-safe must
+   * override this method.
+   *
+   * @param Person person
+   * @return Future that completes with the Teknonymy Name
+   */
+  public default CompletableFuture<String> getTeknonymyAsync(Person person) {
+    return CompletableFuture.supplyAsync(() -> getTeknonymy(person));
+  }
+
+  /**
+   * Method to get the Teknonymy Name of many persons, computed concurrently with 'getTeknonymyAsync'.
+   * A person that appears more than once (by identity) is computed only once.
+   *
+   * @param List persons
+   * @return List with the Teknonymy Name of each person, in the same order
+   */
+  public default List<String> getTeknonymies(List<Person> persons) {
+    Map<Person, CompletableFuture<String>> distinct = new IdentityHashMap<>();
+    List<CompletableFuture<String>> futures = new ArrayList<>(persons.size());
+    for (Person person : persons)
+      futures.add(distinct.computeIfAbsent(person, this::getTeknonymyAsync));
+
+    List<String> teknonymies = new ArrayList<>(futures.size());
+    for (CompletableFuture<String> future : futures)
+      teknonymies.add(future.join());
+    return teknonymies;
+  }
+
+  /**
+   * Method to get the 'k' oldest of the farthest descendants of a person: the deepest ones first, and the oldest first
+   * among those of the same generation. The first one is the descendant of the Teknonymy Name.
+   * By default, the whole tree of 'person' is searched once through {@link Person#children()}, keeping only the best
+   * 'k' descendants. Implementations with links of their own, or where a descendant may be reached by more than one
+   * path, must override this method.
+   *
+   * @param Person person
+   * @param k maximum number of descendants
+   * @return List with up to 'k' descendants, empty if 'person' has no children
+   */
+  public default List<Person> getOldestFarthestDescendants(Person person, int k) {
+    return DescendantQueries.getOldestFarthestDescendants(person, k, null);
+  }
+
+  /**
+   * Method to get the oldest descendant of a person in a given generation.
+   * By default, the tree of 'person' is searched down to 'generation', and no further, through
+   * {@link Person#children()}. Implementations with links of their own must override this method.
+   *
+   * @param Person person
+   * @param generation generation below 'person': '1' for children, '2' for grandchildren, and so on
+   * @return oldest descendant in 'generation', or null if there is none
+   */
+  public default Person getOldestDescendantAtGeneration(Person person, int generation) {
+    return DescendantQueries.getOldestDescendantAtGeneration(person, generation, null);
+  }
 }
@@ -0,0 +1,124 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CountingTeknonymyService.TraversalCounter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wraps another engine to find out why some calls are slow: a huge tree, a deep lineage, or neither (e.g. GC).
+ *
+ * Each call can:
+ * - Emit a {@link TeknonymyEvent} to JFR, with the duration, the engine and, if the engine is a
+ *   {@link CountingTeknonymyService}, the number of persons it visited, the maximum depth it reached and the maximum
+ *   fan-out. Those are counted by the search itself, so there is no extra pass over the tree. The recursive, explicit
+ *   stack, compact and adaptive engines count. Asynchronous calls are not counted.
+ * - Be recorded in a {@link TeknonymyMetrics} (counters and latency histogram).
+ *
+ * When there is no metrics and no JFR recording with the event enabled, a call costs one branch more than calling the
+ * engine directly: the event object is never used, so the JIT does not even allocate it.
+ */
+class InstrumentedTeknonymyService implements ITeknonymyService {
+
+    private final ITeknonymyService delegate;
+    private final String engine;
+    private final TeknonymyMetrics metrics; // Null if disabled
+
+    /**
+     * JFR events only, no metrics.
+     * @param delegate engine that computes the Teknonymy
+     */
+    InstrumentedTeknonymyService(ITeknonymyService delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param delegate engine that computes the Teknonymy
+     * @param metrics where calls are recorded, or null to record no metrics
+     */
+    InstrumentedTeknonymyService(ITeknonymyService delegate, TeknonymyMetrics metrics) {
+        this(delegate, delegate.getClass().getSimpleName(), metrics);
+    }
+
+    /**
+     * @param delegate engine that computes the Teknonymy
+     * @param engine name of the engine in the JFR events
+     * @param metrics where calls are recorded, or null to record no metrics
+     */
+    InstrumentedTeknonymyService(ITeknonymyService delegate, String engine, TeknonymyMetrics metrics) {
+        this.delegate = delegate;
+        this.engine = engine;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        TeknonymyEvent event = new TeknonymyEvent();
+        if (metrics == null && !event.isEnabled())
+            return delegate.getTeknonymy(person);
+
+        // Only counted when there may be an event to report it
+        TraversalCounter counter = event.isEnabled() && delegate instanceof CountingTeknonymyService
+                ? new TraversalCounter() : null;
+        long start = System.nanoTime();
+        event.begin();
+        boolean failed = true;
+        try {
+            String teknonymy = counter == null ? delegate.getTeknonymy(person)
+                    : ((CountingTeknonymyService) delegate).getTeknonymy(person, counter);
+            failed = false;
+            return teknonymy;
+        } finally {
+            finish(event, person, start, counter, failed);
+        }
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     * Runs on the engine's own 'getTeknonymyAsync', and the duration is measured from the call until the future
+     * completes.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        TeknonymyEvent event = new TeknonymyEvent();
+        if (metrics == null && !event.isEnabled())
+            return delegate.getTeknonymyAsync(person);
+
+        long start = System.nanoTime();
+        event.begin();
+        CompletableFuture<String> future;
+        try {
+            future = delegate.getTeknonymyAsync(person);
+        } catch (RuntimeException | Error e) {
+            finish(event, person, start, null, true);
+            throw e;
+        }
+        return future.whenComplete((teknonymy, failure) -> finish(event, person, start, null, failure != null));
+    }
+
+    private void finish(TeknonymyEvent event, Person person, long start, TraversalCounter counter, boolean failed) {
+        event.end();
+        long duration = System.nanoTime() - start;
+        if (metrics != null)
+            metrics.record(duration, failed);
+
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.person = person.name();
+            // A failed search may have stopped before recording anything
+            boolean counted = counter != null && counter.personsVisited() > 0;
+            event.personsVisited = counted ? counter.personsVisited() : -1;
+            event.maxDepth = counted ? counter.maxDepth() : -1;
+            event.maxFanOut = counted ? counter.maxFanOut() : -1;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
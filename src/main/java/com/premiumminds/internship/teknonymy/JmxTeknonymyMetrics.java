@@ -0,0 +1,98 @@
+package com.premiumminds.internship.teknonymy;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link TeknonymyMetrics} that can be published as a JMX MXBean, e.g. to be watched with JConsole or scraped by a
+ * JMX exporter. Counters are {@link LongAdder}s, so recording does not contend between threads.
+ */
+class JmxTeknonymyMetrics implements TeknonymyMetrics {
+
+    static final String DOMAIN = "com.premiumminds.internship.teknonymy";
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(Long.SIZE);
+
+    @Override
+    public void record(long durationNanos, boolean failed) {
+        calls.increment();
+        if (failed)
+            failures.increment();
+        totalNanos.add(durationNanos);
+        if (durationNanos > maxNanos.get())
+            maxNanos.accumulateAndGet(durationNanos, Math::max);
+        histogram.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, durationNanos)));
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] copy = new long[histogram.length()];
+        for (int i = 0; i < copy.length; i++)
+            copy[i] = histogram.get(i);
+        return copy;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        failures.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < histogram.length(); i++)
+            histogram.set(i, 0);
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server, as
+     * 'com.premiumminds.internship.teknonymy:type=TeknonymyMetrics,name=<name>'.
+     *
+     * @param name name of these metrics, e.g. the name of the service
+     * @return name of the registered MXBean, to unregister it later
+     * @throws JMException if the name is invalid or already registered
+     */
+    ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=TeknonymyMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(new StandardMBean(this, TeknonymyMetricsMXBean.class, true), objectName);
+        return objectName;
+    }
+
+    /**
+     * @param objectName name returned by {@link #register(String)}
+     * @throws JMException if it is not registered
+     */
+    static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(objectName);
+    }
+}
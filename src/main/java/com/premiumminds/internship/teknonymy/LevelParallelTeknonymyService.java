@@ -0,0 +1,234 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel version of the iterative (breadth-first) solution, one generation at a time.
+ *
+ * 'getTeknonymy_iter' keeps each generation in a LinkedList, so every person costs a node allocation, and a single
+ * thread walks them. Here, the current generation and the next one are two arrays, kept between calls, and each
+ * generation is split into chunks that are searched by the workers of a {@link ForkJoinPool}:
+ * 1. Count: each chunk counts the children of its persons.
+ * 2. Prefix sums of the counts give the position of each chunk in the next generation, so that:
+ * 3. Copy: each chunk copies the children of its persons to its own range of the next generation, without locks.
+ * When the next generation is empty, the current one is the last one: each chunk finds its oldest person, and the
+ * candidates of the chunks are reduced with a compare-and-set loop.
+ *
+ * Only two generations are held at a time, and only generations of at least two chunks ('2 * minChunkSize' persons)
+ * are split among the workers; smaller ones are searched by the calling thread.
+ *
+ * When to choose it: the parallel part only helps on trees whose generations are many chunks wide, with a pool of
+ * several workers, and that speedup has not been measured yet. On a single core (TeknonymyBenchmark, 1M persons), it
+ * is slower than {@link StackTeknonymyService} and {@link ParallelTeknonymyService} on the WIDE shape (29 ms against
+ * 26 and 21), but about three times faster on the RANDOM shape (83 ms against 237 and 219), and faster on LINE (27 ms
+ * against 41), because it allocates nothing per person and walks the tree in big sequential sweeps. So it is worth
+ * trying on large trees with many generations of irregular width. For wide, shallow trees, use the depth-first
+ * engines unless a multi-core run of 'TeknonymyBenchmark -p shape=WIDE' on the target machine says otherwise.
+ *
+ * Among persons born at the same time, the first one of the generation is chosen, like in the depth-first engines.
+ * Because of the reusable arrays, an instance of this class must not be used by more than one thread at a time.
+ */
+class LevelParallelTeknonymyService implements ITeknonymyService {
+
+    static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 13;
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Chunks per worker, so that a worker that finishes early can still take work from the others.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private enum Phase {COUNT, COPY, OLDEST}
+
+    /**
+     * Best candidate of a chunk.
+     * @param person oldest person of the chunk
+     * @param index position of 'person' in the generation, to break ties
+     */
+    private record Candidate(Person person, int index) {
+        private boolean isBetterThan(Candidate candidate) {
+            return person.isOlder(candidate.person)
+                    || (!candidate.person.isOlder(person) && index < candidate.index);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+
+    private Person[] current = new Person[INITIAL_CAPACITY];
+    private Person[] next = new Person[INITIAL_CAPACITY];
+    // Chunk 'c' copies its children to [chunkOffsets[c], chunkOffsets[c + 1]) of 'next'
+    private int[] chunkOffsets = new int[INITIAL_CAPACITY];
+    private final AtomicReference<Candidate> oldest = new AtomicReference<>();
+
+    LevelParallelTeknonymyService() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool pool where the chunks are searched
+     * @param minChunkSize minimum number of persons per chunk
+     */
+    LevelParallelTeknonymyService(ForkJoinPool pool, int minChunkSize) {
+        if (minChunkSize < 1)
+            throw new IllegalArgumentException("minChunkSize must be positive: " + minChunkSize);
+
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        int size = 1;
+        int maxSize = 1;
+        current[0] = person;
+        try {
+            for (int depth = 0; ; depth++) {
+                int chunks = chunkCount(size);
+                if (chunkOffsets.length < chunks + 1)
+                    chunkOffsets = new int[Math.max(chunks + 1, chunkOffsets.length * 2)];
+
+                chunkOffsets[0] = 0;
+                run(Phase.COUNT, size, chunks);
+                for (int c = 0; c < chunks; c++) // Prefix sums
+                    chunkOffsets[c + 1] += chunkOffsets[c];
+                int nextSize = chunkOffsets[chunks];
+
+                if (nextSize == 0) { // Last generation
+                    oldest.set(null);
+                    run(Phase.OLDEST, size, chunks);
+                    return TeknonymyService.buildTeknonymy(person, oldest.get().person(), depth);
+                }
+
+                if (next.length < nextSize)
+                    next = new Person[Math.max(nextSize, next.length + (next.length >> 1))];
+                run(Phase.COPY, size, chunks);
+
+                Person[] aux = current;
+                current = next;
+                next = aux;
+                size = nextSize;
+                maxSize = Math.max(maxSize, size);
+            }
+        } finally {
+            // Do not keep the tree reachable
+            Arrays.fill(current, 0, Math.min(maxSize, current.length), null);
+            Arrays.fill(next, 0, Math.min(maxSize, next.length), null);
+            oldest.set(null);
+        }
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     * Each call uses its own instance, since instances are not thread-safe.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        // On 'pool' itself, so that no thread of another pool is blocked while the chunks are searched
+        return CompletableFuture.supplyAsync(
+                () -> new LevelParallelTeknonymyService(pool, minChunkSize).getTeknonymy(person), pool);
+    }
+
+    private int chunkCount(int size) {
+        if (pool.getParallelism() <= 1 || size < 2 * minChunkSize)
+            return 1;
+        return Math.min(pool.getParallelism() * CHUNKS_PER_WORKER, size / minChunkSize);
+    }
+
+    /**
+     * Runs 'phase' on every chunk of the current generation: on this thread if there is a single chunk, or on the
+     * pool otherwise.
+     */
+    private void run(Phase phase, int size, int chunks) {
+        if (chunks == 1)
+            runChunk(phase, 0, 0, size);
+        else
+            pool.invoke(new ChunksTask(phase, 0, chunks, size, chunks));
+    }
+
+    /**
+     * Runs 'phase' on the persons [from, to) of the current generation, which are chunk 'chunk'.
+     */
+    private void runChunk(Phase phase, int chunk, int from, int to) {
+        switch (phase) {
+            case COUNT -> {
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    Person[] children = current[i].children();
+                    if (children != null)
+                        count += children.length;
+                }
+                chunkOffsets[chunk + 1] = count;
+            }
+            case COPY -> {
+                int position = chunkOffsets[chunk];
+                for (int i = from; i < to; i++) {
+                    Person[] children = current[i].children();
+                    if (children != null) {
+                        System.arraycopy(children, 0, next, position, children.length);
+                        position += children.length;
+                    }
+                }
+            }
+            case OLDEST -> {
+                int best = from;
+                for (int i = from + 1; i < to; i++)
+                    if (current[i].isOlder(current[best]))
+                        best = i;
+
+                // Lock-free reduction with the candidates of the other chunks
+                Candidate candidate = new Candidate(current[best], best);
+                Candidate other;
+                do {
+                    other = oldest.get();
+                } while ((other == null || candidate.isBetterThan(other)) && !oldest.compareAndSet(other, candidate));
+            }
+        }
+    }
+
+    /**
+     * Runs a phase on the chunks [fromChunk, toChunk), splitting them in halves.
+     */
+    private final class ChunksTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Phase phase;
+        private final int fromChunk;
+        private final int toChunk;
+        private final int size;
+        private final int chunks;
+
+        private ChunksTask(Phase phase, int fromChunk, int toChunk, int size, int chunks) {
+            this.phase = phase;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.size = size;
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = (int) ((long) fromChunk * size / chunks);
+                int to = (int) ((long) toChunk * size / chunks);
+                runChunk(phase, fromChunk, from, to);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ChunksTask(phase, fromChunk, middle, size, chunks),
+                    new ChunksTask(phase, middle, toChunk, size, chunks));
+        }
+    }
+}
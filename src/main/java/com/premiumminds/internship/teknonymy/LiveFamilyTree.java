@@ -0,0 +1,264 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Family tree that can grow, with the result of every person kept up to date.
+ *
+ * Each person keeps the oldest of their farthest descendants and their depth. Adding a child can only make that
+ * result deeper or older, so only the ancestors of the new child are updated, and the update stops at the first
+ * ancestor whose result does not change. Queries are a lookup.
+ *
+ * Since {@link Person#children()} cannot change, this class keeps its own parent/children links: the 'children()' of
+ * a person are only read when that person is added, and ignored after that. Persons are compared by identity.
+ *
+ * This class is not thread-safe.
+ */
+class LiveFamilyTree implements ITeknonymyService {
+
+    private static final class Node {
+        private final Person person;
+        private final Node parent;
+        private final List<Node> children = new ArrayList<>(0);
+        private Person oldestDescendant; // 'person' itself while they have no children
+        private int depth;
+
+        private Node(Person person, Node parent) {
+            this.person = person;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * The links kept by this class, not {@link Person#children()}.
+     */
+    private static final DescendantQueries.Links<Node> LINKS = new DescendantQueries.Links<>() {
+        @Override
+        public Person person(Node node) {
+            return node.person;
+        }
+
+        @Override
+        public int childCount(Node node) {
+            return node.children.size();
+        }
+
+        @Override
+        public Node child(Node node, int index) {
+            return node.children.get(index);
+        }
+    };
+
+    private final Map<Person, Node> nodes = new IdentityHashMap<>();
+    private final Node root;
+
+    /**
+     * @param root root of the family tree. Their current descendants are added too.
+     */
+    LiveFamilyTree(Person root) {
+        this.root = addSubtree(root, null);
+    }
+
+    /**
+     * Adds 'child' (and their current descendants) as the last child of 'parent'.
+     * @param parent person of the tree
+     * @param child person who is not part of the tree yet
+     * @throws IllegalArgumentException if 'parent' is not part of the tree or 'child' (or one of their descendants)
+     *                                  already is
+     */
+    public void addChild(Person parent, Person child) {
+        Node parentNode = getNode(parent);
+        Node childNode = addSubtree(child, parentNode);
+        parentNode.children.add(childNode);
+
+        // Propagate the new result upwards while it changes something.
+        Person candidate = childNode.oldestDescendant;
+        int depth = childNode.depth + 1;
+        Node branch = childNode;
+        for (Node node = parentNode; node != null; branch = node, node = node.parent, depth++) {
+            if (isBetter(node, branch, candidate, depth)) {
+                node.oldestDescendant = candidate;
+                node.depth = depth;
+            } else
+                break;
+        }
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person of the tree
+     * @return String which is the Teknonymy Name
+     * @throws IllegalArgumentException if 'person' is not part of the tree
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        Node node = getNode(person);
+        return TeknonymyService.buildTeknonymy(person, node.oldestDescendant, node.depth);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name, computed by the caller.
+     * A query is only a lookup, and this class is not thread-safe, so it is not run on another thread, where it could
+     * race an 'addChild'.
+     *
+     * @param person person of the tree
+     * @return Future that is already completed with the Teknonymy Name, or with the exception of 'getTeknonymy'
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        try {
+            return CompletableFuture.completedFuture(getTeknonymy(person));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Method to get the 'k' oldest of the farthest descendants of a person, including those added after them.
+     * The tree is searched through its own links, and subtrees that are not deep enough are skipped, using the number
+     * of generations kept for every person.
+     *
+     * @param person person of the tree
+     * @param k maximum number of descendants
+     * @return List with up to 'k' descendants, deepest first and then oldest first
+     * @throws IllegalArgumentException if 'person' is not part of the tree
+     */
+    @Override
+    public List<Person> getOldestFarthestDescendants(Person person, int k) {
+        return DescendantQueries.getOldestFarthestDescendants(getNode(person), LINKS, k, node -> node.depth, false);
+    }
+
+    /**
+     * Method to get the oldest descendant of a person in a given generation, including those added after them.
+     *
+     * @param person person of the tree
+     * @param generation generation below 'person': '1' for children, '2' for grandchildren, and so on
+     * @return oldest descendant in 'generation', or null if there is none
+     * @throws IllegalArgumentException if 'person' is not part of the tree
+     */
+    @Override
+    public Person getOldestDescendantAtGeneration(Person person, int generation) {
+        return DescendantQueries.getOldestDescendantAtGeneration(getNode(person), LINKS, generation,
+                node -> node.depth, false);
+    }
+
+    /**
+     * @param person person of the tree
+     * @return number of generations below 'person' ('0' if they have no children)
+     * @throws IllegalArgumentException if 'person' is not part of the tree
+     */
+    public int getGenerations(Person person) {
+        return getNode(person).depth;
+    }
+
+    /**
+     * @return number of persons in the tree
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Creates a copy of the current tree as {@link Person} records, with up-to-date 'children' arrays.
+     * @return root of the copy
+     */
+    public Person toPerson() {
+        Map<Node, Person> copies = new IdentityHashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        List<Node> preOrder = new ArrayList<>(nodes.size());
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            preOrder.add(node);
+            node.children.forEach(stack::push);
+        }
+
+        // Reverse pre-order: children are always copied before their parents
+        for (int i = preOrder.size() - 1; i >= 0; i--) {
+            Node node = preOrder.get(i);
+            Person[] children = null;
+            if (!node.children.isEmpty()) {
+                children = new Person[node.children.size()];
+                for (int c = 0; c < children.length; c++)
+                    children[c] = copies.get(node.children.get(c));
+            }
+            Person person = node.person;
+            copies.put(node, new Person(person.name(), person.sex(), children, person.dateOfBirth()));
+        }
+
+        return copies.get(root);
+    }
+
+    /**
+     * Creates the nodes of 'person' and their descendants, with their results.
+     * @return node of 'person'
+     */
+    private Node addSubtree(Person person, Node parent) {
+        // Nodes and links, in pre-order
+        List<Node> created = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Node subtreeRoot = new Node(person, parent);
+        stack.push(subtreeRoot);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (nodes.putIfAbsent(node.person, node) != null) {
+                created.forEach(n -> nodes.remove(n.person)); // Leave the tree as it was
+                throw new IllegalArgumentException("Person is already part of the tree: " + node.person.name());
+            }
+            created.add(node);
+
+            if (node.person.children() != null)
+                for (Person child : node.person.children()) {
+                    Node childNode = new Node(child, node);
+                    node.children.add(childNode);
+                    stack.push(childNode);
+                }
+        }
+
+        // Results, bottom-up
+        new StackTeknonymyService().search(person, (p, oldestDescendant, depth) -> {
+            Node node = nodes.get(p);
+            node.oldestDescendant = oldestDescendant;
+            node.depth = depth;
+        });
+
+        return subtreeRoot;
+    }
+
+    /**
+     * The chosen child should be the oldest of the deepest and, among those born at the same time, the first one in
+     * depth-first order, like in the other engines.
+     * @param node ancestor whose result may change
+     * @param branch child of 'node' that 'candidate' descends from
+     * @param candidate new descendant of 'node'
+     * @param depth generation of 'candidate' below 'node'
+     * @return true if 'candidate' should replace the current result of 'node'
+     */
+    private boolean isBetter(Node node, Node branch, Person candidate, int depth) {
+        if (node.depth != depth)
+            return node.depth < depth;
+        Person current = node.oldestDescendant;
+        if (candidate.isOlder(current) || current.isOlder(candidate))
+            return candidate.isOlder(current);
+
+        // Same generation and date of birth: the one on the first branch of 'node' wins
+        Node currentBranch = nodes.get(current);
+        while (currentBranch.parent != node)
+            currentBranch = currentBranch.parent;
+        // On the same branch, 'candidate' already won against 'current' below 'node'
+        return currentBranch == branch || node.children.indexOf(branch) < node.children.indexOf(currentBranch);
+    }
+
+    private Node getNode(Person person) {
+        Node node = nodes.get(person);
+        if (node == null)
+            throw new IllegalArgumentException("Person is not part of the tree: " + person.name());
+        return node;
+    }
+}
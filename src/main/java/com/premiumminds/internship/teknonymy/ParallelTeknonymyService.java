@@ -0,0 +1,139 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.TeknonymyService.PersonDepth;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel version of the recursive solution, built on top of a {@link ForkJoinPool}.
+ *
+ * The children of a person are searched in parallel, but only near the root: a task stops forking (and falls back to
+ * the sequential 'getFarthestOldestChild') once it is deeper than 'maxForkDepth' or once its worker already has enough
+ * queued work for the other workers to steal. This keeps the number of tasks proportional to the number of cores
+ * instead of the number of persons.
+ *
+ * Results are merged in the same order as in the sequential version, so the chosen descendant is always the same.
+ */
+class ParallelTeknonymyService implements ITeknonymyService {
+
+    /**
+     * If the current worker has more than this number of tasks waiting to be stolen, there is no point in creating
+     * more of them. See {@link ForkJoinTask#getSurplusQueuedTaskCount()}.
+     */
+    private static final int MAX_SURPLUS_QUEUED_TASKS = 3;
+
+    private final ForkJoinPool pool;
+    private final int maxForkDepth;
+
+    ParallelTeknonymyService() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    ParallelTeknonymyService(ForkJoinPool pool) {
+        this(pool, defaultMaxForkDepth(pool.getParallelism()));
+    }
+
+    /**
+     * @param pool pool where the search runs
+     * @param maxForkDepth number of (branching) generations, counted from the root, where children are still searched
+     *                     in parallel. '0' makes this service sequential.
+     */
+    ParallelTeknonymyService(ForkJoinPool pool, int maxForkDepth) {
+        if (maxForkDepth < 0)
+            throw new IllegalArgumentException("maxForkDepth must not be negative: " + maxForkDepth);
+
+        this.pool = pool;
+        this.maxForkDepth = maxForkDepth;
+    }
+
+    /**
+     * Enough generations for a binary tree to have about 8 tasks per worker.
+     */
+    private static int defaultMaxForkDepth(int parallelism) {
+        return parallelism <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(parallelism * 8 - 1);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        PersonDepth pd = maxForkDepth == 0
+                ? TeknonymyService.getFarthestOldestChild(new PersonDepth(person, -1))
+                : pool.invoke(new FarthestOldestChildTask(person, 0));
+        return TeknonymyService.buildTeknonymy(person, pd.person(), pd.depth());
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        // On 'pool' itself, so that no thread of another pool is blocked in 'pool.invoke'
+        return CompletableFuture.supplyAsync(() -> getTeknonymy(person), pool);
+    }
+
+    /**
+     * Finds the oldest of the farthest child of the subtree which root is 'person'.
+     */
+    private final class FarthestOldestChildTask extends RecursiveTask<PersonDepth> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Person person;
+        private final int forkDepth;
+
+        private FarthestOldestChildTask(Person person, int forkDepth) {
+            this.person = person;
+            this.forkDepth = forkDepth;
+        }
+
+        @Override
+        protected PersonDepth compute() {
+            // Lineages with a single child have nothing to split. They are walked down without creating tasks (or
+            // stack frames), and their length is added back at the end.
+            Person current = person;
+            int lineageLength = 0;
+            while (current.children() != null && current.children().length == 1) {
+                current = current.children()[0];
+                lineageLength++;
+            }
+
+            PersonDepth pd;
+            if (current.children() == null || current.children().length == 0 // Leaf
+                    || forkDepth >= maxForkDepth || getSurplusQueuedTaskCount() > MAX_SURPLUS_QUEUED_TASKS)
+                pd = TeknonymyService.getFarthestOldestChild(new PersonDepth(current, -1));
+            else
+                pd = forkChildren(current.children());
+
+            return lineageLength == 0 ? pd : new PersonDepth(pd.person(), pd.depth() + lineageLength);
+        }
+
+        private PersonDepth forkChildren(Person[] children) {
+            FarthestOldestChildTask[] tasks = new FarthestOldestChildTask[children.length];
+            // Forked in reverse, so this worker pops them in the same order they are joined
+            for (int i = children.length - 1; i > 0; i--)
+                tasks[i] = (FarthestOldestChildTask) new FarthestOldestChildTask(children[i], forkDepth + 1).fork();
+
+            // The first child is searched by this worker
+            PersonDepth best = new FarthestOldestChildTask(children[0], forkDepth + 1).compute();
+            for (int i = 1; i < children.length; i++) {
+                PersonDepth pd = tasks[i].join();
+
+                // The chosen child should be the oldest of the deepest.
+                if (best.depth() < pd.depth() || (best.depth() == pd.depth() && pd.person().isOlder(best.person())))
+                    best = pd;
+            }
+
+            return new PersonDepth(best.person(), best.depth() + 1);
+        }
+    }
+}
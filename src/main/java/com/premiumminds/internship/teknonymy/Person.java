@@ -18,6 +18,15 @@ public record Person(String name, Character sex, Person[] children, LocalDateTim
      * @return 'mother' if sex == 'F' or 'father' if sex == 'M'
      */
     public String getParenthood(){
+        return getParenthood(sex);
+    }
+
+    /**
+     * Get 'mother' or 'father', depending on the sex.
+     * @param sex sex of the person
+     * @return 'mother' if sex == 'F' or 'father' if sex == 'M'
+     */
+    static String getParenthood(char sex) {
         return switch (sex) {
             case 'M' -> "father";
             case 'F' -> "mother";
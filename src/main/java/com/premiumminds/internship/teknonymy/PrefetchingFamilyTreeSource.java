@@ -0,0 +1,121 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Decorator for sources with slow access to children, e.g. a remote store. Children are read from the wrapped source
+ * in batches of 'batchSize' and, while the traversal goes through one batch, the next one is already being read on
+ * 'executor'.
+ *
+ * Each iterator holds at most two batches, so a traversal holds at most '2 * batchSize' handles per generation of the
+ * current path. The wrapped iterators are only used by one thread at a time, so they do not need to be thread-safe.
+ *
+ * @param <H> type of the handles
+ */
+class PrefetchingFamilyTreeSource<H> implements FamilyTreeSource<H> {
+
+    private final FamilyTreeSource<H> source;
+    private final int batchSize;
+    private final Executor executor;
+
+    /**
+     * @param source source to read from
+     * @param batchSize maximum number of children read at a time
+     * @param executor where the next batches are read
+     */
+    PrefetchingFamilyTreeSource(FamilyTreeSource<H> source, int batchSize, Executor executor) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+
+        this.source = source;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public H root() {
+        return source.root();
+    }
+
+    @Override
+    public Iterator<H> children(H person) {
+        return new BatchIterator(source.children(person));
+    }
+
+    @Override
+    public boolean isOlder(H person, H other) {
+        return source.isOlder(person, other);
+    }
+
+    @Override
+    public char sex(H person) {
+        return source.sex(person);
+    }
+
+    @Override
+    public String name(H person) {
+        return source.name(person);
+    }
+
+    private final class BatchIterator implements Iterator<H> {
+        private final Iterator<H> children;
+        private Object[] batch;
+        private int index;
+        private CompletableFuture<Object[]> nextBatch; // Null if there is nothing more to read
+
+        private BatchIterator(Iterator<H> children) {
+            this.children = children;
+            this.batch = read(); // Needed right away
+            prefetch();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < batch.length)
+                return true;
+            if (nextBatch == null)
+                return false;
+
+            try {
+                batch = nextBatch.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw e;
+            }
+            index = 0;
+            prefetch();
+            return batch.length > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public H next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            H child = (H) batch[index];
+            batch[index++] = null; // The batch does not keep children that were handed out
+            return child;
+        }
+
+        /**
+         * Reads the next batch in the background, unless the last one showed that there is nothing more to read.
+         */
+        private void prefetch() {
+            nextBatch = batch.length < batchSize ? null : CompletableFuture.supplyAsync(this::read, executor);
+        }
+
+        private Object[] read() {
+            Object[] read = new Object[batchSize];
+            int count = 0;
+            while (count < batchSize && children.hasNext())
+                read[count++] = children.next();
+            return count == batchSize ? read : Arrays.copyOf(read, count);
+        }
+    }
+}
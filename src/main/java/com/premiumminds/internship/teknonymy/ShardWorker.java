@@ -0,0 +1,102 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CompactTeknonymyService.IndexDepth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Worker process of {@link ShardedTeknonymyService}.
+ *
+ * It reads commands from its standard input and writes the replies to its standard output, in binary (see
+ * {@link DataInputStream}), one reply per command:
+ * - OPEN path: maps the {@link FamilyTreeFile} at 'path'. Reply: OK.
+ * - SUMMARIZE person: searches the subtree of 'person' of the open file. Reply: OK, oldest descendant, depth.
+ * - QUIT: exits, without reply. The end of the input also makes it exit.
+ * If a command fails, the reply is ERROR and a message instead.
+ *
+ * Nothing else may be written to the standard output, or the coordinator would read it as a reply.
+ */
+final class ShardWorker {
+
+    static final byte OPEN = 'O';
+    static final byte SUMMARIZE = 'S';
+    static final byte QUIT = 'Q';
+    static final byte OK = 'K';
+    static final byte ERROR = 'E';
+
+    private ShardWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        serve(new DataInputStream(new BufferedInputStream(System.in)),
+                new DataOutputStream(new BufferedOutputStream(System.out)));
+    }
+
+    /**
+     * Answers commands until QUIT or the end of 'in'.
+     * @param in commands
+     * @param out replies
+     * @throws IOException if 'in' or 'out' fail
+     */
+    static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        CompactTeknonymyService service = new CompactTeknonymyService();
+        ICompactFamilyTree tree = null;
+
+        while (true) {
+            byte command;
+            try {
+                command = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+
+            switch (command) {
+                case OPEN -> {
+                    String file = in.readUTF();
+                    try {
+                        tree = FamilyTreeFile.open(Path.of(file));
+                        out.writeByte(OK);
+                    } catch (IOException | RuntimeException e) {
+                        tree = null;
+                        error(out, e);
+                    }
+                }
+                case SUMMARIZE -> {
+                    int person = in.readInt();
+                    if (tree == null)
+                        error(out, new IllegalStateException("No file is open"));
+                    else
+                        try {
+                            IndexDepth result = service.search(tree, person);
+                            out.writeByte(OK);
+                            out.writeInt(result.person());
+                            out.writeInt(result.depth());
+                        } catch (RuntimeException e) {
+                            error(out, e);
+                        }
+                }
+                case QUIT -> {
+                    return;
+                }
+                default -> {
+                    // The rest of the input cannot be understood either
+                    error(out, new IOException("Unknown command: " + command));
+                    out.flush();
+                    return;
+                }
+            }
+            out.flush();
+        }
+    }
+
+    private static void error(DataOutputStream out, Exception e) throws IOException {
+        out.writeByte(ERROR);
+        out.writeUTF(String.valueOf(e));
+    }
+}
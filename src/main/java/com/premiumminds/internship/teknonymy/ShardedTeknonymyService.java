@@ -0,0 +1,277 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CompactTeknonymyService.IndexDepth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the search over a {@link FamilyTreeFile} between worker processes ({@link ShardWorker}), so that the search
+ * is not limited by the heap or the cores of a single JVM.
+ *
+ * The result of a subtree (the oldest of its farthest descendants, and their depth) only depends on the results of
+ * the subtrees of its children, so the tree can be cut anywhere:
+ * 1. The coordinator walks the top of the tree in breadth-first order until the frontier has 'SHARDS_PER_WORKER'
+ *    subtrees per worker. The subtrees of the frontier are the shards.
+ * 2. Each worker maps the same file and summarizes one shard at a time, taking the next one as soon as it is done, so
+ *    a worker that gets small shards simply does more of them.
+ * 3. The coordinator merges the summaries with the top of the tree, bottom-up, with the usual rule (the oldest of the
+ *    deepest), so the result is the same as the sequential one.
+ *
+ * Workers talk to the coordinator through their standard input and output (see {@link ShardWorker}), and are kept
+ * alive between calls. Calls are run one at a time, each one with every worker. If a call fails because of a worker,
+ * this service should be closed.
+ */
+class ShardedTeknonymyService implements ITeknonymyService, AutoCloseable {
+
+    static final int SHARDS_PER_WORKER = 8;
+    /**
+     * The coordinator stops cutting after walking this number of persons, e.g. on a line.
+     */
+    static final int MAX_TOP_PERSONS = 1 << 16;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final ExecutorService executor;
+
+    /**
+     * @param workerCount number of worker processes
+     * @throws IOException if a worker cannot be started
+     */
+    ShardedTeknonymyService(int workerCount) throws IOException {
+        this(workerCount, List.of());
+    }
+
+    /**
+     * @param workerCount number of worker processes
+     * @param jvmOptions options of the worker JVMs, e.g. '-Xmx2g'
+     * @throws IOException if a worker cannot be started
+     */
+    ShardedTeknonymyService(int workerCount, List<String> jvmOptions) throws IOException {
+        if (workerCount < 1)
+            throw new IllegalArgumentException("workerCount must be positive: " + workerCount);
+
+        this.executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "teknonymy-shard-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < workerCount; i++)
+                workers.add(new Worker(jvmOptions));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name.
+     * The tree is written to a temporary {@link FamilyTreeFile} first, so that the workers can read it.
+     *
+     * @param person person
+     * @return String which is the Teknonymy Name
+     * @throws UncheckedIOException if the file cannot be written or a worker fails
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        try {
+            Path file = Files.createTempFile("teknonymy", ".tkny");
+            try {
+                FamilyTreeFile.write(person, file);
+                return getTeknonymy(file, 0);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to get the Teknonymy Name of any person of a family tree file.
+     * @param file family tree file, readable by the workers
+     * @param person index of the person
+     * @return String which is the Teknonymy Name
+     * @throws IOException if the file cannot be read or a worker fails
+     */
+    public synchronized String getTeknonymy(Path file, int person) throws IOException {
+        ICompactFamilyTree tree = FamilyTreeFile.open(file);
+        if (person < 0 || person >= tree.size())
+            throw new IllegalArgumentException("No such person: " + person);
+
+        // 1. Top of the tree and shards
+        List<Integer> top = new ArrayList<>();
+        Queue<Integer> frontier = new ArrayDeque<>();
+        frontier.add(person);
+        int target = workers.size() * SHARDS_PER_WORKER;
+        while (!frontier.isEmpty() && frontier.size() < target && top.size() < MAX_TOP_PERSONS) {
+            int current = frontier.poll();
+            top.add(current);
+            int first = tree.firstChild(current);
+            for (int child = first; child < first + tree.childCount(current); child++)
+                frontier.add(child);
+        }
+
+        // 2. Summaries of the shards
+        Map<Integer, IndexDepth> results = summarize(file, frontier);
+
+        // 3. Merge, bottom-up: breadth-first order reversed puts every child before their parent
+        for (int i = top.size() - 1; i >= 0; i--) {
+            int current = top.get(i);
+            int first = tree.firstChild(current);
+            int count = tree.childCount(current);
+            IndexDepth result = new IndexDepth(current, 0); // Leaf
+            for (int child = first; child < first + count; child++) {
+                IndexDepth childResult = results.get(child);
+                int depth = childResult.depth() + 1;
+                // The chosen child should be the oldest of the deepest.
+                if (child == first || result.depth() < depth
+                        || (result.depth() == depth && tree.isOlder(childResult.person(), result.person())))
+                    result = new IndexDepth(childResult.person(), depth);
+            }
+            results.put(current, result);
+        }
+
+        IndexDepth result = results.get(person);
+        return result.depth() == 0 ? ""
+                : TeknonymyService.buildTeknonymy(Person.getParenthood(tree.sex(person)), tree.name(result.person()),
+                result.depth());
+    }
+
+    /**
+     * Hands the shards to the workers, as they become free.
+     * @return summary of each shard
+     */
+    private Map<Integer, IndexDepth> summarize(Path file, Queue<Integer> shards) throws IOException {
+        Map<Integer, IndexDepth> results = new ConcurrentHashMap<>();
+        if (shards.isEmpty())
+            return new HashMap<>();
+
+        Queue<Integer> pending = new ConcurrentLinkedQueue<>(shards);
+        String path = file.toAbsolutePath().toString();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Worker worker : workers)
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    worker.open(path);
+                    Integer shard;
+                    while ((shard = pending.poll()) != null)
+                        results.put(shard, worker.summarize(shard));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause)
+                throw cause.getCause();
+            throw e;
+        }
+        return new HashMap<>(results);
+    }
+
+    /**
+     * Stops the workers.
+     */
+    @Override
+    public synchronized void close() {
+        for (Worker worker : workers)
+            worker.close();
+        workers.clear();
+        executor.shutdown();
+    }
+
+    /**
+     * Worker process, and the coordinator's side of its protocol.
+     */
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+
+        private Worker(List<String> jvmOptions) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(classPath());
+            command.add(ShardWorker.class.getName());
+
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        private void open(String file) throws IOException {
+            out.writeByte(ShardWorker.OPEN);
+            out.writeUTF(file);
+            out.flush();
+            readStatus();
+        }
+
+        private IndexDepth summarize(int person) throws IOException {
+            out.writeByte(ShardWorker.SUMMARIZE);
+            out.writeInt(person);
+            out.flush();
+            readStatus();
+            return new IndexDepth(in.readInt(), in.readInt());
+        }
+
+        private void readStatus() throws IOException {
+            byte status = in.readByte();
+            if (status == ShardWorker.ERROR)
+                throw new IOException("Worker failed: " + in.readUTF());
+            if (status != ShardWorker.OK)
+                throw new IOException("Unexpected reply from worker: " + status);
+        }
+
+        private void close() {
+            try {
+                out.writeByte(ShardWorker.QUIT);
+                out.close();
+                if (!process.waitFor(5, TimeUnit.SECONDS))
+                    process.destroyForcibly();
+            } catch (IOException e) {
+                process.destroyForcibly(); // Already dead
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Workers only need the classes of this project, so they are started with the directory (or jar) that this
+         * class was loaded from.
+         */
+        private static String classPath() throws IOException {
+            try {
+                return Path.of(ShardWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                        .toString();
+            } catch (URISyntaxException e) {
+                throw new IOException("Cannot find the classes of the workers", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.CountingTeknonymyService.TraversalCounter;
+import com.premiumminds.internship.teknonymy.TeknonymyService.PersonDepth;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Iterative version of the recursive solution.
+ *
+ * It does the same depth-first search as 'getFarthestOldestChild', but the call stack is replaced by parallel arrays
+ * (one entry per generation of the current path), so:
+ * - There are no stack overflows, no matter how tall the tree is. Memory grows with the height of the tree only.
+ * - No object is allocated per person. The arrays are kept between calls and only grow when a taller tree shows up.
+ *
+ * Because of those reusable arrays, an instance of this class must not be used by more than one thread at a time.
+ */
+class StackTeknonymyService implements CountingTeknonymyService {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Entry 'i' of each array belongs to the person at generation 'i' of the current path.
+    private Person[] persons = new Person[INITIAL_CAPACITY];
+    private int[] nextChild = new int[INITIAL_CAPACITY]; // Next child to search
+    private Person[] oldestDescendants = new Person[INITIAL_CAPACITY]; // Best candidate of the children searched so far
+    private int[] depths = new int[INITIAL_CAPACITY]; // Depth of the best candidate, relative to the bottom of the tree
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        return getTeknonymy(person, null);
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name, counting what the search visits.
+     * @param person person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person, TraversalCounter counter) {
+        PersonDepth pd = search(person, null, counter);
+        return TeknonymyService.buildTeknonymy(person, pd.person(), pd.depth());
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name without blocking the caller.
+     * Each call uses its own instance, since instances are not thread-safe.
+     *
+     * @param person person
+     * @return Future that completes with the Teknonymy Name
+     */
+    @Override
+    public CompletableFuture<String> getTeknonymyAsync(Person person) {
+        return CompletableFuture.supplyAsync(() -> new StackTeknonymyService().getTeknonymy(person));
+    }
+
+    /**
+     * Receives the result of each subtree, as soon as it is known.
+     */
+    @FunctionalInterface
+    interface SubtreeVisitor {
+        /**
+         * @param person root of the subtree
+         * @param oldestDescendant oldest of the farthest descendants of 'person' ('person' itself if it is a leaf)
+         * @param depth depth of 'oldestDescendant' relative to 'person'
+         */
+        void visit(Person person, Person oldestDescendant, int depth);
+    }
+
+    /**
+     * Finds the oldest of the farthest child of the tree which root is 'person'.
+     * @param person root of the tree
+     * @param visitor if not null, receives the result of every subtree. Descendants come before their ancestors.
+     * @return PersonDepth object corresponding to the solution of the tree
+     */
+    PersonDepth search(Person person, SubtreeVisitor visitor) {
+        return search(person, visitor, null);
+    }
+
+    /**
+     * Finds the oldest of the farthest child of the tree which root is 'person'.
+     * @param person root of the tree
+     * @param visitor if not null, receives the result of every subtree. Descendants come before their ancestors.
+     * @param counter if not null, receives the number of persons visited, the maximum depth reached and the maximum
+     *                fan-out
+     * @return PersonDepth object corresponding to the solution of the tree
+     */
+    PersonDepth search(Person person, SubtreeVisitor visitor, TraversalCounter counter) {
+        int top = 0;
+        push(top, person);
+        // Counted in locals either way, which costs less than checking 'counter' on every person
+        long visited = 1;
+        int maxTop = 0;
+        int maxFanOut = 0;
+
+        while (true) {
+            Person current = persons[top];
+            Person[] children = current.children();
+
+            if (children != null && nextChild[top] < children.length) { // Downwards: search the next child
+                if (children.length > maxFanOut)
+                    maxFanOut = children.length;
+                Person child = children[nextChild[top]++];
+                if (++top == persons.length)
+                    grow();
+                push(top, child);
+                visited++;
+                if (top > maxTop)
+                    maxTop = top;
+                continue;
+            }
+
+            // Upwards: every child was searched, so the result of 'current' is known
+            Person oldestDescendant;
+            int depth;
+            if (children == null) { // Leaf
+                oldestDescendant = current;
+                depth = 0;
+            } else {
+                oldestDescendant = oldestDescendants[top];
+                depth = depths[top] + 1;
+            }
+            persons[top] = null; // Do not keep references to the tree after the call
+            oldestDescendants[top] = null;
+            if (visitor != null)
+                visitor.visit(current, oldestDescendant, depth);
+
+            if (top == 0) {
+                if (counter != null)
+                    counter.record(visited, maxTop, maxFanOut);
+                return new PersonDepth(oldestDescendant, depth);
+            }
+
+            // The chosen child should be the oldest of the deepest.
+            top--;
+            if (oldestDescendants[top] == null || depths[top] < depth
+                    || (depths[top] == depth && oldestDescendant.isOlder(oldestDescendants[top]))) {
+                oldestDescendants[top] = oldestDescendant;
+                depths[top] = depth;
+            }
+        }
+    }
+
+    private void push(int index, Person person) {
+        persons[index] = person;
+        nextChild[index] = 0;
+        oldestDescendants[index] = null;
+        depths[index] = -1;
+    }
+
+    private void grow() {
+        int capacity = persons.length * 2;
+        persons = Arrays.copyOf(persons, capacity);
+        nextChild = Arrays.copyOf(nextChild, capacity);
+        oldestDescendants = Arrays.copyOf(oldestDescendants, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+}
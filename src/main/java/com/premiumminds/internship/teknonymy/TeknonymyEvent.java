@@ -0,0 +1,46 @@
+package com.premiumminds.internship.teknonymy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of a single Teknonymy call, emitted by {@link InstrumentedTeknonymyService}.
+ *
+ * Only calls that take at least 10 ms are recorded by default. The threshold can be changed in the recording
+ * settings, e.g. '-XX:StartFlightRecording:com.premiumminds.internship.teknonymy.Teknonymy#threshold=0ms'. What the
+ * search visited is reported by the engine itself (see {@link CountingTeknonymyService}), and only for synchronous
+ * calls.
+ */
+@Name("com.premiumminds.internship.teknonymy.Teknonymy")
+@Label("Teknonymy")
+@Category("Teknonymy")
+@Description("Computation of the Teknonymy of a person")
+@Threshold("10 ms")
+@StackTrace(false)
+final class TeknonymyEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Person")
+    String person;
+
+    @Label("Persons Visited")
+    @Description("Number of persons the engine searched, or -1 if the engine does not count them")
+    long personsVisited;
+
+    @Label("Max Depth")
+    @Description("Depth of the deepest person the engine searched, or -1 if the engine does not count it")
+    int maxDepth;
+
+    @Label("Max Fan-Out")
+    @Description("Largest number of children of a person the engine searched, or -1 if the engine does not count it")
+    int maxFanOut;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,140 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.TeknonymyService.PersonDepth;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed results of every person of a family tree, for trees that are queried many times.
+ *
+ * The index is built with a single depth-first search of the tree. After that, the Teknonymy of any person of the
+ * tree is a lookup, and so is the list of every person with at least 'n' generations of descendants.
+ *
+ * The index is a snapshot: it does not see changes made to the tree after it was built. It can be shared by many
+ * threads.
+ */
+class TeknonymyIndex implements ITeknonymyService {
+
+    /** Oldest of the farthest descendants (and their depth) of each person, by identity. */
+    private final Map<Person, PersonDepth> results;
+
+    /** Every person of the tree, sorted by the number of generations below them. */
+    private final List<Person> persons;
+
+    /** Persons with 'g' generations below them are persons[generationStart[g], generationStart[g + 1]). */
+    private final int[] generationStart;
+
+    /**
+     * Builds the index of the tree which root is 'root'.
+     * @param root root of the family tree
+     */
+    TeknonymyIndex(Person root) {
+        results = new IdentityHashMap<>();
+        new StackTeknonymyService().search(root,
+                (person, oldestDescendant, depth) -> results.put(person, new PersonDepth(oldestDescendant, depth)));
+
+        // Counting sort of the persons by their number of generations
+        int height = results.get(root).depth();
+        int[] generationCount = new int[height + 1];
+        for (PersonDepth pd : results.values())
+            generationCount[pd.depth()]++;
+
+        generationStart = new int[height + 2];
+        for (int g = 0; g <= height; g++)
+            generationStart[g + 1] = generationStart[g] + generationCount[g];
+
+        int[] next = Arrays.copyOf(generationStart, height + 1);
+        Person[] sorted = new Person[results.size()];
+        results.forEach((person, pd) -> sorted[next[pd.depth()]++] = person);
+        persons = Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name
+     * @param person person of the indexed tree
+     * @return String which is the Teknonymy Name
+     * @throws IllegalArgumentException if 'person' is not part of the indexed tree
+     */
+    @Override
+    public String getTeknonymy(Person person) {
+        PersonDepth pd = getResult(person);
+        return TeknonymyService.buildTeknonymy(person, pd.person(), pd.depth());
+    }
+
+    /**
+     * @param person person of the indexed tree
+     * @return number of generations below 'person' ('0' if they have no children)
+     * @throws IllegalArgumentException if 'person' is not part of the indexed tree
+     */
+    public int getGenerations(Person person) {
+        return getResult(person).depth();
+    }
+
+    /**
+     * @param person person of the indexed tree
+     * @return oldest of the farthest descendants of 'person', or 'person' itself if they have no children
+     * @throws IllegalArgumentException if 'person' is not part of the indexed tree
+     */
+    public Person getOldestFarthestDescendant(Person person) {
+        return getResult(person).person();
+    }
+
+    /**
+     * Persons whose Teknonymy spans at least 'generations' generations. For example, '3' returns every
+     * great-grandparent, great-great-grandparent and so on.
+     *
+     * @param generations minimum number of generations below the person
+     * @return unmodifiable view of the persons, sorted by their number of generations
+     */
+    public List<Person> getPersonsWithGenerationsAtLeast(int generations) {
+        int g = Math.max(0, Math.min(generations, generationStart.length - 1));
+        return persons.subList(generationStart[g], persons.size());
+    }
+
+    /**
+     * Method to get the 'k' oldest of the farthest descendants of a person.
+     * The number of generations below each person is known, so only the lineages that reach the generations of the
+     * result are searched.
+     *
+     * @param person person of the indexed tree
+     * @param k maximum number of descendants
+     * @return List with up to 'k' descendants, deepest first and then oldest first
+     * @throws IllegalArgumentException if 'person' is not part of the indexed tree
+     */
+    @Override
+    public List<Person> getOldestFarthestDescendants(Person person, int k) {
+        return DescendantQueries.getOldestFarthestDescendants(person, k, this::getGenerations);
+    }
+
+    /**
+     * Method to get the oldest descendant of a person in a given generation.
+     * Only the lineages that reach 'generation' are searched.
+     *
+     * @param person person of the indexed tree
+     * @param generation generation below 'person': '1' for children, '2' for grandchildren, and so on
+     * @return oldest descendant in 'generation', or null if there is none
+     * @throws IllegalArgumentException if 'person' is not part of the indexed tree
+     */
+    @Override
+    public Person getOldestDescendantAtGeneration(Person person, int generation) {
+        return DescendantQueries.getOldestDescendantAtGeneration(person, generation, this::getGenerations);
+    }
+
+    /**
+     * @return number of persons in the indexed tree
+     */
+    public int size() {
+        return persons.size();
+    }
+
+    private PersonDepth getResult(Person person) {
+        PersonDepth pd = results.get(person);
+        if (pd == null)
+            throw new IllegalArgumentException("Person is not part of the indexed tree: " + person.name());
+        return pd;
+    }
+}
@@ -0,0 +1,15 @@
+package com.premiumminds.internship.teknonymy;
+
+/**
+ * Cumulative counters and latency histogram of the calls made through an {@link InstrumentedTeknonymyService}.
+ * Implementations must be thread-safe.
+ */
+interface TeknonymyMetrics extends TeknonymyMetricsMXBean {
+
+    /**
+     * Records a call.
+     * @param durationNanos duration of the call, in nanoseconds
+     * @param failed true if the call threw
+     */
+    void record(long durationNanos, boolean failed);
+}
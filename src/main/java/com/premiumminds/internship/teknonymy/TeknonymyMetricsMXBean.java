@@ -0,0 +1,40 @@
+package com.premiumminds.internship.teknonymy;
+
+/**
+ * Read-only view of {@link TeknonymyMetrics}, as exposed through JMX. It is public only because JMX requires it.
+ */
+public interface TeknonymyMetricsMXBean {
+
+    /**
+     * @return number of calls, failed ones included
+     */
+    long getCalls();
+
+    /**
+     * @return number of calls that threw
+     */
+    long getFailures();
+
+    /**
+     * @return sum of the duration of every call, in nanoseconds
+     */
+    long getTotalNanos();
+
+    /**
+     * @return duration of the slowest call, in nanoseconds
+     */
+    long getMaxNanos();
+
+    /**
+     * Latency histogram with power of two buckets: entry 'i' is the number of calls that took between 2^i
+     * (inclusive) and 2^(i+1) (exclusive) nanoseconds. Entry 0 also counts calls that took 0 ns.
+     *
+     * @return copy of the histogram, with 64 entries
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Sets every counter back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,351 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers a continuous stream of queries (persons) with their Teknonymy Names, as a {@link Flow.Processor}.
+ *
+ * - Micro-batching: queries are gathered until there are 'maxBatchSize' of them or the oldest one has waited
+ *   'maxDelayNanos'. With no delay (the default), a batch takes every query received while the previous batch was
+ *   being answered, so batches are small when the load is light and grow with it, without ever waiting for a timer.
+ *   Each batch asks the engine only for the persons that are not cached, once per person. They are computed on the
+ *   batcher thread, one after the other: most queries take microseconds, so handing them to other threads would cost
+ *   more than it saves.
+ * - Backpressure: at most 'maxBatchSize' queries are requested from upstream at a time, and more are only requested
+ *   once a batch is published. Publishing blocks while a subscriber has 'maxBufferCapacity' answers it did not ask for
+ *   yet, so a slow subscriber slows the upstream down instead of filling the heap.
+ * - Cache: the last 'cacheCapacity' answers are kept, least recently used first out. Persons are compared by identity.
+ *
+ * Answers are published in the same order as the queries. Persons are immutable, so cached answers are only stale if
+ * the engine's answer for the same person changes, e.g. with a {@link LiveFamilyTree} or if a 'children' array is
+ * changed in place. In that case, call {@link #invalidate(Person)} for every ancestor of the change, or
+ * {@link #invalidateAll()}.
+ *
+ * If the engine fails, subscribers get the error and the upstream is cancelled. The same happens if the processor is
+ * closed directly with {@link #close()} or {@link #closeExceptionally(Throwable)}, without waiting for the upstream to
+ * complete.
+ */
+class TeknonymyProcessor extends SubmissionPublisher<TeknonymyProcessor.Answer>
+        implements Flow.Processor<Person, TeknonymyProcessor.Answer> {
+
+    /**
+     * Answer to a query.
+     * @param person person of the query
+     * @param teknonymy Teknonymy Name of 'person'
+     */
+    record Answer(Person person, String teknonymy) {
+    }
+
+    static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    static final long DEFAULT_MAX_DELAY_NANOS = 0;
+    static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+
+    private final ITeknonymyService engine;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final AnswerCache cache;
+    // Every query, flush and signal runs on this single thread, so the batch needs no locks
+    private final ScheduledExecutorService batcher;
+
+    private Flow.Subscription upstream;
+    private List<Person> batch = new ArrayList<>();
+    private long batchNumber;
+    private boolean done;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Uses {@link TeknonymyService}, batches of up to 256 queries without delay, and up to 65536 cached answers.
+     */
+    TeknonymyProcessor() {
+        this(new TeknonymyService(), DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_NANOS, DEFAULT_CACHE_CAPACITY,
+                Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param engine computes the answers that are not cached
+     * @param maxBatchSize maximum number of queries per batch, and of queries requested from upstream at a time
+     * @param maxDelayNanos maximum time a query waits for its batch to fill up, '0' to not wait
+     * @param cacheCapacity maximum number of cached answers, '0' to disable the cache
+     * @param maxBufferCapacity maximum number of answers buffered for each subscriber
+     */
+    TeknonymyProcessor(ITeknonymyService engine, int maxBatchSize, long maxDelayNanos, int cacheCapacity,
+                       int maxBufferCapacity) {
+        super(Runnable::run, maxBufferCapacity); // Answers are delivered by the thread that publishes or requests them
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        if (maxDelayNanos < 0 || cacheCapacity < 0)
+            throw new IllegalArgumentException("Invalid delay or cache capacity: " + maxDelayNanos + ", "
+                    + cacheCapacity);
+
+        this.engine = engine;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.cache = new AnswerCache(cacheCapacity);
+        this.batcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "teknonymy-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ===== UPSTREAM =====
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        execute(() -> {
+            if (upstream != null || done) {
+                subscription.cancel(); // Only one upstream
+                return;
+            }
+            upstream = subscription;
+            subscription.request(maxBatchSize);
+        });
+    }
+
+    @Override
+    public void onNext(Person person) {
+        execute(() -> {
+            if (done)
+                return;
+            batch.add(person);
+            if (batch.size() >= maxBatchSize)
+                flush();
+            else if (batch.size() == 1) {
+                long number = batchNumber;
+                Runnable flushIfSame = () -> {
+                    if (batchNumber == number && !done) // Not flushed because it was full already
+                        flush();
+                };
+                if (maxDelayNanos == 0)
+                    batcher.execute(flushIfSame); // After the queries that are already queued
+                else
+                    batcher.schedule(flushIfSame, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        execute(() -> {
+            if (done)
+                return;
+            flush();
+            if (!done) // Not failed while flushing
+                finish(throwable);
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        execute(() -> {
+            if (done)
+                return;
+            flush();
+            if (!done) // Not failed while flushing
+                finish(null);
+        });
+    }
+
+    // ===== CLOSING =====
+
+    /**
+     * Answers the queries received so far, then completes the subscribers, cancels the upstream and stops the batcher.
+     * Returns without waiting for that to happen.
+     */
+    @Override
+    public void close() {
+        onComplete();
+    }
+
+    /**
+     * Fails the subscribers with 'error', without answering the pending queries, cancels the upstream and stops the
+     * batcher. Returns without waiting for that to happen.
+     * @param error error handed to the subscribers
+     */
+    @Override
+    public void closeExceptionally(Throwable error) {
+        if (error == null)
+            throw new NullPointerException();
+        execute(() -> {
+            if (!done)
+                finish(error);
+        });
+    }
+
+    /**
+     * Runs 'task' on the batcher thread, unless the processor is already done.
+     */
+    private void execute(Runnable task) {
+        try {
+            batcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Done: signals that arrive after an error are ignored
+        }
+    }
+
+    // ===== BATCHES =====
+
+    /**
+     * Answers the current batch, publishes the answers and requests as many queries as were answered.
+     */
+    private void flush() {
+        List<Person> persons = batch;
+        if (persons.isEmpty() || done)
+            return;
+        batch = new ArrayList<>(maxBatchSize);
+        batchNumber++;
+        batches.increment();
+
+        // Each distinct person is looked up (and computed) only once
+        Map<Person, String> answers = new IdentityHashMap<>();
+        List<Person> uncached = new ArrayList<>();
+        long epoch = cache.epoch();
+        for (Person person : persons)
+            if (!answers.containsKey(person)) {
+                String teknonymy = cache.get(person);
+                answers.put(person, teknonymy);
+                if (teknonymy == null)
+                    uncached.add(person);
+            }
+        hits.add(persons.size() - uncached.size());
+        misses.add(uncached.size());
+
+        try {
+            for (Person person : uncached) {
+                String teknonymy = engine.getTeknonymy(person);
+                answers.put(person, teknonymy);
+                cache.put(person, teknonymy, epoch);
+            }
+        } catch (RuntimeException | Error e) {
+            finish(e);
+            return;
+        }
+
+        for (Person person : persons)
+            submit(new Answer(person, answers.get(person))); // Blocks while a subscriber is full
+        upstream.request(persons.size());
+    }
+
+    /**
+     * Closes the subscribers, normally if 'error' is null, cancels the upstream and stops the batcher.
+     */
+    private void finish(Throwable error) {
+        done = true;
+        batch = new ArrayList<>();
+        if (upstream != null)
+            upstream.cancel(); // Nothing happens if it is already complete
+        if (error == null)
+            super.close();
+        else
+            super.closeExceptionally(error);
+        batcher.shutdown();
+    }
+
+    // ===== CACHE =====
+
+    /**
+     * Forgets the cached answer of 'person'. Batches already being computed do not cache their answers.
+     * @param person person whose answer may have changed
+     */
+    public void invalidate(Person person) {
+        cache.invalidate(person);
+    }
+
+    /**
+     * Forgets every cached answer. Batches already being computed do not cache their answers.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return number of queries answered from the cache, or by an earlier query of the same batch
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of queries answered by the engine
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of batches answered
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Bounded LRU cache of answers, by identity of the person.
+     *
+     * Invalidations move the epoch forward, and answers computed before an invalidation are not cached, so an answer
+     * that was being computed while its person was invalidated can never become stale in the cache.
+     */
+    private static final class AnswerCache {
+
+        private record Key(Person person) {
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Key key && key.person == person;
+            }
+
+            @Override
+            public int hashCode() {
+                return System.identityHashCode(person);
+            }
+        }
+
+        private final LinkedHashMap<Key, String> answers;
+        private long epoch;
+
+        private AnswerCache(int capacity) {
+            this.answers = new LinkedHashMap<>(16, 0.75f, true) { // Access order, least recently used first
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        private synchronized long epoch() {
+            return epoch;
+        }
+
+        private synchronized String get(Person person) {
+            return answers.get(new Key(person));
+        }
+
+        private synchronized void put(Person person, String teknonymy, long epoch) {
+            if (this.epoch == epoch)
+                answers.put(new Key(person), teknonymy);
+        }
+
+        private synchronized void invalidate(Person person) {
+            epoch++;
+            answers.remove(new Key(person));
+        }
+
+        private synchronized void invalidateAll() {
+            epoch++;
+            answers.clear();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes Teknonymy names, e.g. 'great-grandmother of Jerry', with as few copies and allocations as possible.
+ *
+ * Everything before the descendant name ('great-grandmother of ') only depends on the parenthood and the depth, so it
+ * is built once for every parenthood returned by {@link Person#getParenthood(char)} and every depth up to
+ * {@link #CACHED_DEPTHS}, both as a String and as UTF-8 bytes. Deeper prefixes are written in chunks of cached
+ * 'great-' runs, so the cost is always linear in the length of the result.
+ *
+ * The 'appendTeknonymy' methods write straight into the caller's buffer and allocate nothing.
+ */
+final class TeknonymyRenderer {
+
+    static final int CACHED_DEPTHS = 64;
+
+    private static final String GREAT = "great-";
+    private static final String GRAND = "grand";
+    private static final String OF = " of ";
+    private static final String[] PARENTHOODS = {
+            Person.getParenthood('M'), Person.getParenthood('F'), Person.getParenthood('?')};
+
+    private static final String GREATS = GREAT.repeat(CACHED_DEPTHS);
+    private static final byte[] GREATS_BYTES = GREATS.getBytes(StandardCharsets.US_ASCII);
+    // [parenthood][depth] -> e.g. 'great-grandmother of '. Depth 0 is unused.
+    private static final String[][] PREFIXES = new String[PARENTHOODS.length][CACHED_DEPTHS + 1];
+    private static final byte[][][] PREFIX_BYTES = new byte[PARENTHOODS.length][CACHED_DEPTHS + 1][];
+
+    static {
+        for (int p = 0; p < PARENTHOODS.length; p++)
+            for (int depth = 1; depth <= CACHED_DEPTHS; depth++) {
+                StringBuilder prefix = new StringBuilder();
+                appendDegree(prefix, PARENTHOODS[p], depth);
+                PREFIXES[p][depth] = prefix.append(OF).toString();
+                PREFIX_BYTES[p][depth] = PREFIXES[p][depth].getBytes(StandardCharsets.UTF_8);
+            }
+    }
+
+    private TeknonymyRenderer() {
+    }
+
+    /**
+     * Builds the Teknonymy of a person given their parenthood, the name of their 'descendant' and the depth at which
+     * the 'descendant' is at. The result is allocated once, with its exact length.
+     *
+     * @param parenthood 'mother' or 'father'
+     * @param descendantName Name of the descendant of the person. A null name is rendered as "null".
+     * @param depth Depth at which the 'descendant' is at.
+     * @return Teknonymy, or "" if 'depth' is 0
+     */
+    static String render(String parenthood, String descendantName, int depth) {
+        if (depth <= 0)
+            return "";
+        descendantName = String.valueOf(descendantName);
+        int p = indexOf(parenthood);
+        if (p >= 0 && depth <= CACHED_DEPTHS)
+            return PREFIXES[p][depth].concat(descendantName);
+
+        StringBuilder teknonymy = new StringBuilder(prefixLength(parenthood, depth) + descendantName.length());
+        return appendTeknonymy(teknonymy, parenthood, descendantName, depth).toString();
+    }
+
+    /**
+     * Appends the Teknonymy to 'builder'. Appends nothing if 'depth' is 0.
+     *
+     * @param builder destination
+     * @param parenthood 'mother' or 'father'
+     * @param descendantName Name of the descendant of the person. A null name is rendered as "null".
+     * @param depth Depth at which the 'descendant' is at.
+     * @return 'builder'
+     */
+    static StringBuilder appendTeknonymy(StringBuilder builder, String parenthood, String descendantName, int depth) {
+        try {
+            appendTeknonymy((Appendable) builder, parenthood, descendantName, depth);
+            return builder;
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder does not throw IOException", e);
+        }
+    }
+
+    /**
+     * Appends the Teknonymy to 'appendable'. Appends nothing if 'depth' is 0.
+     *
+     * @param appendable destination, e.g. a Writer
+     * @param parenthood 'mother' or 'father'
+     * @param descendantName Name of the descendant of the person. A null name is rendered as "null".
+     * @param depth Depth at which the 'descendant' is at.
+     * @return 'appendable'
+     * @throws IOException if 'appendable' throws it
+     */
+    static <A extends Appendable> A appendTeknonymy(A appendable, String parenthood, String descendantName, int depth)
+            throws IOException {
+        if (depth <= 0)
+            return appendable;
+        int p = indexOf(parenthood);
+        if (p >= 0 && depth <= CACHED_DEPTHS)
+            appendable.append(PREFIXES[p][depth]);
+        else {
+            appendDegree(appendable, parenthood, depth);
+            appendable.append(OF);
+        }
+        appendable.append(descendantName);
+        return appendable;
+    }
+
+    /**
+     * Appends the Teknonymy to 'buffer', encoded as UTF-8. Appends nothing if 'depth' is 0.
+     *
+     * @param buffer destination
+     * @param parenthood 'mother' or 'father'
+     * @param descendantName Name of the descendant of the person. A null name is rendered as "null".
+     * @param depth Depth at which the 'descendant' is at.
+     * @return 'buffer'
+     * @throws BufferOverflowException if the Teknonymy does not fit in 'buffer'. Nothing is written in that case.
+     */
+    static ByteBuffer appendTeknonymy(ByteBuffer buffer, String parenthood, String descendantName, int depth) {
+        if (depth <= 0)
+            return buffer;
+        descendantName = String.valueOf(descendantName);
+        int p = indexOf(parenthood);
+        if (buffer.remaining() < utf8Length(parenthood, depth, descendantName, p))
+            throw new BufferOverflowException();
+
+        if (p >= 0 && depth <= CACHED_DEPTHS)
+            buffer.put(PREFIX_BYTES[p][depth]);
+        else {
+            for (int greats = depth - 2; greats > 0; greats -= CACHED_DEPTHS)
+                buffer.put(GREATS_BYTES, 0, GREAT.length() * Math.min(greats, CACHED_DEPTHS));
+            if (depth >= 2)
+                putUtf8(buffer, GRAND);
+            putUtf8(buffer, parenthood);
+            putUtf8(buffer, OF);
+        }
+        putUtf8(buffer, descendantName);
+        return buffer;
+    }
+
+    // ===== HELPERS =====
+
+    /**
+     * Appends e.g. 'great-grandmother' (without ' of ').
+     */
+    private static void appendDegree(Appendable appendable, String parenthood, int depth) throws IOException {
+        for (int greats = depth - 2; greats > 0; greats -= CACHED_DEPTHS)
+            appendable.append(GREATS, 0, GREAT.length() * Math.min(greats, CACHED_DEPTHS));
+        if (depth >= 2)
+            appendable.append(GRAND);
+        appendable.append(parenthood);
+    }
+
+    private static void appendDegree(StringBuilder builder, String parenthood, int depth) {
+        try {
+            appendDegree((Appendable) builder, parenthood, depth);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder does not throw IOException", e);
+        }
+    }
+
+    /**
+     * @return index of 'parenthood' in the cache, or -1 if it is not cached
+     */
+    private static int indexOf(String parenthood) {
+        for (int p = 0; p < PARENTHOODS.length; p++)
+            if (PARENTHOODS[p].equals(parenthood))
+                return p;
+        return -1;
+    }
+
+    /**
+     * @return length in chars of everything before the descendant name
+     */
+    private static int prefixLength(String parenthood, int depth) {
+        return GREAT.length() * Math.max(0, depth - 2) + (depth >= 2 ? GRAND.length() : 0) + parenthood.length()
+                + OF.length();
+    }
+
+    private static int utf8Length(String parenthood, int depth, String descendantName, int p) {
+        int prefix = p >= 0 && depth <= CACHED_DEPTHS ? PREFIX_BYTES[p][depth].length
+                : prefixLength(parenthood, depth) - parenthood.length() + utf8Length(parenthood);
+        return prefix + utf8Length(descendantName);
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c))
+                length++; // Written as '?'
+            else
+                length += 3;
+        }
+        return length;
+    }
+
+    /**
+     * Same encoding as {@link String#getBytes(java.nio.charset.Charset)} with UTF-8, including '?' for unpaired
+     * surrogates, but without the intermediate array.
+     */
+    private static void putUtf8(ByteBuffer buffer, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80)
+                buffer.put((byte) c);
+            else if (c < 0x800)
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                        .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c))
+                buffer.put((byte) '?');
+            else
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.premiumminds.internship.teknonymy;
 
+import com.premiumminds.internship.teknonymy.CountingTeknonymyService.TraversalCounter;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.function.BiConsumer;
 
 /**
  * Exercise note:
@@ -33,7 +40,7 @@ import java.util.Queue;
  * submit the parallel version."
  */
 
-class TeknonymyService implements ITeknonymyService {
+class TeknonymyService implements CountingTeknonymyService {
 
     /**
      * Method to get a Person Teknonymy Name
@@ -46,14 +53,26 @@ class TeknonymyService implements ITeknonymyService {
         // return getTeknonymy_iter(person);
     }
 
+    /**
+     * Method to get a Person Teknonymy Name, counting what the recursive search visits.
+     * @param person person
+     * @param counter receives the number of persons visited, the maximum depth reached and the maximum fan-out, or null
+     * @return String which is the Teknonymy Name
+     */
+    @Override
+    public String getTeknonymy(Person person, TraversalCounter counter) {
+        return getTeknonymy_rec(person, counter);
+    }
+
     // ===== RECURSIVE SOLUTION =====
 
     /**
      * Aux. data class for the recursive algorithm.
      * @param person person
-     * @param depth depth relative to the bottom of the tree, not the root.
+     * @param depth depth relative to the bottom of the tree, not the root. On the way down, depth relative to the
+     *              root, which is only used for counting.
      */
-    private record PersonDepth(Person person, int depth) {
+    record PersonDepth(Person person, int depth) {
     }
 
     /**
@@ -62,7 +81,18 @@ class TeknonymyService implements ITeknonymyService {
      * @return String which is the Teknonymy Name
      */
     public String getTeknonymy_rec(Person person) {
-        PersonDepth pd = getFarthestOldestChild(new PersonDepth(person, -1));
+        return getTeknonymy_rec(person, null);
+    }
+
+    /**
+     * Same as 'getTeknonymy_rec(Person)', counting what the search visits.
+     * @param person person
+     * @param counter if not null, receives the number of persons visited, the maximum depth reached and the maximum
+     *                fan-out
+     * @return String which is the Teknonymy Name
+     */
+    public String getTeknonymy_rec(Person person, TraversalCounter counter) {
+        PersonDepth pd = getFarthestOldestChild(new PersonDepth(person, 0), counter);
         return buildTeknonymy(person, pd.person, pd.depth);
     }
 
@@ -74,15 +104,29 @@ class TeknonymyService implements ITeknonymyService {
      * @param personDepth Data object that contains the root of a subtree
      * @return ChildDepth object corresponding to the solution of the subtree in childDepth.
      */
-    private PersonDepth getFarthestOldestChild(PersonDepth personDepth) {
-        if (personDepth.person.children() == null) // Base case, node with no children (leaf)
+    static PersonDepth getFarthestOldestChild(PersonDepth personDepth) {
+        return getFarthestOldestChild(personDepth, null);
+    }
+
+    /**
+     * Same as 'getFarthestOldestChild(PersonDepth)', counting every person visited.
+     * @param personDepth Data object that contains the root of a subtree, and its depth relative to the root of the
+     *                    search if 'counter' is not null
+     * @param counter if not null, receives each person visited, with their depth and number of children
+     * @return ChildDepth object corresponding to the solution of the subtree in childDepth.
+     */
+    static PersonDepth getFarthestOldestChild(PersonDepth personDepth, TraversalCounter counter) {
+        Person[] children = personDepth.person.children();
+        if (counter != null)
+            counter.record(1, personDepth.depth, children == null ? 0 : children.length);
+        if (children == null) // Base case, node with no children (leaf)
             return new PersonDepth(personDepth.person, 0);
 
         Person oldestChild = null;
         int depthOfOldestChild = -1;
-        for (Person child : personDepth.person.children()) {
-            // Depth '-1' is used for the downwards propagation phase, but any number would do.
-            PersonDepth pd = getFarthestOldestChild(new PersonDepth(child, -1));
+        for (Person child : children) {
+            // On the way down, the depth is only used for counting.
+            PersonDepth pd = getFarthestOldestChild(new PersonDepth(child, personDepth.depth + 1), counter);
             if (oldestChild == null) {
                 oldestChild = pd.person;
                 depthOfOldestChild = pd.depth;
@@ -110,7 +154,7 @@ class TeknonymyService implements ITeknonymyService {
      * @param person person
      * @return String which is the Teknonymy Name
      */
-    private String getTeknonymy_iter(Person person) {
+    public String getTeknonymy_iter(Person person) {
         Person oldestPerson = null;
         int oldestPersonDepth = -1; // The root will be considered to be at depth '0'
 
@@ -142,6 +186,108 @@ class TeknonymyService implements ITeknonymyService {
         return buildTeknonymy(person, oldestPerson, oldestPersonDepth);
     }
 
+    // ===== BULK SOLUTION =====
+
+    /**
+     * Computes the Teknonymy Name of every person of the tree which root is 'root'.
+     * Persons are compared by identity, so different persons with the same data are still different keys.
+     *
+     * @param root root of the family tree
+     * @return Map from each person of the tree to their Teknonymy Name
+     */
+    public Map<Person, String> getAllTeknonymies(Person root) {
+        Map<Person, String> teknonymies = new IdentityHashMap<>();
+        forEachTeknonymy(root, teknonymies::put);
+        return teknonymies;
+    }
+
+    /**
+     * Computes the Teknonymy Name of every person of the tree which root is 'root', and hands each one to 'consumer'
+     * as soon as it is known. Descendants are always handed before their ancestors.
+     *
+     * Same depth-first search as 'getFarthestOldestChild', done by {@link StackTeknonymyService} so that the tree can
+     * be of any height, but the result of each subtree is also used to build the Teknonymy of its root. Since the
+     * result of a person is computed from the results of their children, the whole tree is searched only once.
+     *
+     * @param root root of the family tree
+     * @param consumer receives each person and their Teknonymy Name
+     */
+    public void forEachTeknonymy(Person root, BiConsumer<Person, String> consumer) {
+        new StackTeknonymyService().search(root, (person, oldestDescendant, depth) ->
+                consumer.accept(person, buildTeknonymy(person, oldestDescendant, depth)));
+    }
+
+    // ===== SOURCE SOLUTION =====
+
+    /**
+     * Method to get the Teknonymy Name of the root of a tree that is fetched on demand.
+     * @param source family tree
+     * @return String which is the Teknonymy Name
+     */
+    public <H> String getTeknonymy(FamilyTreeSource<H> source) {
+        return getTeknonymy(source, source.root());
+    }
+
+    /**
+     * Method to get a Person Teknonymy Name, for a tree that is fetched on demand.
+     *
+     * Same depth-first search as 'getFarthestOldestChild', but with an explicit stack (one entry per generation of the
+     * current path), so the tree can be of any height. Only the children iterators of the current path are kept, so
+     * memory does not depend on the size of the tree, only on its height and on what each iterator holds.
+     *
+     * @param source family tree
+     * @param person handle of the person
+     * @return String which is the Teknonymy Name
+     */
+    public <H> String getTeknonymy(FamilyTreeSource<H> source, H person) {
+        int capacity = 64;
+        @SuppressWarnings("unchecked")
+        H[] persons = (H[]) new Object[capacity];
+        @SuppressWarnings("unchecked")
+        Iterator<H>[] children = (Iterator<H>[]) new Iterator<?>[capacity];
+        @SuppressWarnings("unchecked")
+        H[] oldestDescendants = (H[]) new Object[capacity]; // Best candidate of the children searched so far
+        int[] depths = new int[capacity]; // Depth of the best candidate, '-1' if there is none yet
+
+        int top = 0;
+        persons[0] = person;
+        children[0] = source.children(person);
+        depths[0] = -1;
+
+        while (true) {
+            if (children[top].hasNext()) { // Downwards: search the next child
+                H child = children[top].next();
+                if (++top == capacity) {
+                    capacity *= 2;
+                    persons = Arrays.copyOf(persons, capacity);
+                    children = Arrays.copyOf(children, capacity);
+                    oldestDescendants = Arrays.copyOf(oldestDescendants, capacity);
+                    depths = Arrays.copyOf(depths, capacity);
+                }
+                persons[top] = child;
+                children[top] = source.children(child);
+                oldestDescendants[top] = null;
+                depths[top] = -1;
+                continue;
+            }
+
+            // Upwards: every child was searched
+            H oldestDescendant = depths[top] < 0 ? persons[top] : oldestDescendants[top];
+            int depth = depths[top] + 1;
+            children[top] = null;
+            if (top == 0)
+                return buildTeknonymy(Person.getParenthood(source.sex(person)), source.name(oldestDescendant), depth);
+
+            top--;
+            // The chosen child should be the oldest of the deepest.
+            if (depths[top] < depth
+                    || (depths[top] == depth && source.isOlder(oldestDescendant, oldestDescendants[top]))) {
+                oldestDescendants[top] = oldestDescendant;
+                depths[top] = depth;
+            }
+        }
+    }
+
     // ===== AUX METHODS =====
 
     /**
@@ -152,18 +298,20 @@ class TeknonymyService implements ITeknonymyService {
      * @param depth Depth at which the 'descendant' is at.
      * @return Teknonymy
      */
-    private static String buildTeknonymy(Person person, Person descendant, int depth) {
-        StringBuilder degree = new StringBuilder();
-
-        if (depth >= 1)
-            degree.insert(0, person.getParenthood());
-
-        if (depth >= 2)
-            degree.insert(0, "grand");
-
-        for (int i = 3; i <= depth; i++)
-            degree.insert(0, "great-");
+    static String buildTeknonymy(Person person, Person descendant, int depth) {
+        return depth == 0 ? "" : buildTeknonymy(person.getParenthood(), descendant.name(), depth);
+    }
 
-        return depth == 0 ? "" : degree + " of " + descendant.name();
+    /**
+     * Builds the Teknonymy of a person given their parenthood, the name of their 'descendant' and the depth at which
+     * the 'descendant' is at.
+     *
+     * @param parenthood 'mother' or 'father'
+     * @param descendantName Name of the descendant of the person.
+     * @param depth Depth at which the 'descendant' is at.
+     * @return Teknonymy
+     */
+    static String buildTeknonymy(String parenthood, String descendantName, int depth) {
+        return TeknonymyRenderer.render(parenthood, descendantName, depth);
     }
 }
@@ -0,0 +1,374 @@
+package com.premiumminds.internship.teknonymy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary file with the result of every person of a family tree, so that a service can answer queries right after
+ * starting, by mapping the file, instead of searching the whole tree first.
+ *
+ * The snapshot belongs to one version of the tree: it stores a hash of the content of the tree, and opening it
+ * against a tree with a different hash fails. A {@link FamilyTreeFile} stores the hashes of its tree, so a snapshot is
+ * checked against a mapped tree without reading either of them. The body is protected by a CRC32C checksum.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header            magic "TKSN" (int), version (int), flags (int), size (int), content hash (long),
+ *                   teknonymyBytes (long), CRC32C of everything after the header (int), 4 reserved bytes
+ * generations       int[size], height of the subtree of each person
+ * oldest            int[size], index of the oldest of the farthest descendants of each person (themselves if leaf)
+ * teknonymy pool    byte[teknonymyBytes], UTF-8, only if flags has HAS_TEKNONYMIES
+ * teknonymy offsets long[size + 1], Teknonymy of 'i' is [offsets[i], offsets[i + 1]), only if flags has
+ *                   HAS_TEKNONYMIES
+ * </pre>
+ */
+final class TeknonymySnapshot {
+
+    static final int MAGIC = 0x544B534E; // "TKSN"
+    static final int VERSION = 1;
+    static final int HAS_TEKNONYMIES = 1;
+    static final int HEADER_BYTES = 40;
+
+    private TeknonymySnapshot() {
+    }
+
+    /**
+     * Hash of everything a snapshot depends on: the shape of the tree and the dates of birth and, if the snapshot
+     * stores rendered Teknonymies, the sex and name of every person. Reading the whole tree is still needed, but it is
+     * a sequential scan, not a search.
+     *
+     * @param tree family tree
+     * @param withTeknonymies true to hash the sexes and names too
+     * @return 64-bit hash of the content of 'tree'
+     */
+    static long contentHash(ICompactFamilyTree tree, boolean withTeknonymies) {
+        long hash = mix(withTeknonymies ? 1 : 0, tree.size());
+        for (int i = 0; i < tree.size(); i++) {
+            hash = mix(hash, tree.childCount(i));
+            hash = mix(hash, tree.birthEpochSecond(i));
+            hash = mix(hash, tree.birthNano(i));
+            if (withTeknonymies) {
+                hash = mix(hash, tree.sex(i));
+                hash = mix(hash, tree.name(i).hashCode());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Computes the result of every person with a single scan. Children always have greater indexes than their
+     * parent, so scanning from the last person to the first one finds the results of the children first.
+     *
+     * @param tree family tree
+     * @param generations receives the height of the subtree of each person
+     * @param oldest receives the oldest of the farthest descendants of each person
+     */
+    static void computeResults(ICompactFamilyTree tree, int[] generations, int[] oldest) {
+        for (int person = tree.size() - 1; person >= 0; person--) {
+            int first = tree.firstChild(person);
+            int count = tree.childCount(person);
+            int best = person; // Leaf
+            int bestGenerations = 0;
+            for (int child = first; child < first + count; child++) {
+                int childGenerations = generations[child] + 1;
+                // The chosen child should be the oldest of the deepest.
+                if (child == first || bestGenerations < childGenerations
+                        || (bestGenerations == childGenerations && tree.isOlder(oldest[child], best))) {
+                    best = oldest[child];
+                    bestGenerations = childGenerations;
+                }
+            }
+            generations[person] = bestGenerations;
+            oldest[person] = best;
+        }
+    }
+
+    /**
+     * Computes the result of every person of 'tree' and writes them to 'file'.
+     *
+     * The snapshot is written to a temporary file in the same directory, which then atomically replaces 'file'. So
+     * 'file' is either the previous snapshot or the new one, even if writing fails or the process crashes halfway.
+     *
+     * @param tree family tree
+     * @param file file to write to. Replaced if it already exists.
+     * @param withTeknonymies if true, the rendered Teknonymy of every person is stored too, so that queries do not
+     *                        need the tree
+     * @throws IOException if the file cannot be written, or the Teknonymies take more than Integer.MAX_VALUE bytes
+     */
+    static void write(ICompactFamilyTree tree, Path file, boolean withTeknonymies) throws IOException {
+        int size = tree.size();
+        int[] generations = new int[size];
+        int[] oldest = new int[size];
+        computeResults(tree, generations, oldest);
+
+        // Sizes of the Teknonymies first, so that nothing is written if they do not fit
+        long[] offsets = null;
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        if (withTeknonymies) {
+            offsets = new long[size + 1];
+            for (int person = 0; person < size; person++) {
+                buffer = render(tree, person, oldest[person], generations[person], buffer);
+                offsets[person + 1] = offsets[person] + buffer.position();
+            }
+            if (offsets[size] > Integer.MAX_VALUE)
+                throw new IOException("Teknonymies are too big: " + offsets[size] + " bytes");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_BYTES);
+                CRC32C crc = new CRC32C();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+                for (int person = 0; person < size; person++)
+                    out.writeInt(generations[person]);
+                for (int person = 0; person < size; person++)
+                    out.writeInt(oldest[person]);
+
+                if (withTeknonymies) {
+                    for (int person = 0; person < size; person++) {
+                        buffer = render(tree, person, oldest[person], generations[person], buffer);
+                        out.write(buffer.array(), 0, buffer.position());
+                    }
+                    for (long offset : offsets)
+                        out.writeLong(offset);
+                }
+                out.flush(); // Not closed, that would close the channel
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(withTeknonymies ? HAS_TEKNONYMIES : 0).putInt(size)
+                        .putLong(contentHash(tree, withTeknonymies)).putLong(withTeknonymies ? offsets[size] : 0)
+                        .putInt((int) crc.getValue()).putInt(0)
+                        .flip();
+                channel.write(header, 0);
+                channel.force(true); // On disk before it replaces the previous snapshot
+            }
+            // Replaces 'file' if it exists (other options are ignored with ATOMIC_MOVE)
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException | Error e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Renders the Teknonymy of 'person' into 'buffer', from its start.
+     * @return 'buffer', or a bigger one if it did not fit
+     */
+    private static ByteBuffer render(ICompactFamilyTree tree, int person, int oldest, int generations,
+                                     ByteBuffer buffer) {
+        while (true) {
+            try {
+                buffer.clear();
+                return TeknonymyRenderer.appendTeknonymy(buffer, Person.getParenthood(tree.sex(person)),
+                        tree.name(oldest), generations);
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot of a tree stored in a {@link FamilyTreeFile}, checked against the content hash stored in that
+     * file. Only the headers are read, so this takes the same time for any size of tree, unless the checksum is
+     * verified.
+     *
+     * @param file file written by 'write'
+     * @param tree tree the snapshot must belong to
+     * @param verifyChecksum if true, the whole file is read once to verify its checksum
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, is corrupted or belongs to another tree
+     */
+    static MappedSnapshot open(Path file, FamilyTreeFile.MappedFamilyTree tree, boolean verifyChecksum)
+            throws IOException {
+        return open(file, tree::contentHash, verifyChecksum);
+    }
+
+    /**
+     * Maps a snapshot, checked against a known content hash. Only the header is read, unless the checksum is
+     * verified.
+     *
+     * Computing the content hash reads the whole tree, so, for a tree in a {@link FamilyTreeFile}, use
+     * {@link #open(Path, FamilyTreeFile.MappedFamilyTree, boolean)} instead.
+     *
+     * @param file file written by 'write'
+     * @param expectedContentHash content hash of the tree the snapshot must belong to (see 'contentHash')
+     * @param verifyChecksum if true, the whole file is read once to verify its checksum
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, is corrupted or belongs to another tree
+     */
+    static MappedSnapshot open(Path file, long expectedContentHash, boolean verifyChecksum) throws IOException {
+        return open(file, withTeknonymies -> expectedContentHash, verifyChecksum);
+    }
+
+    /**
+     * Content hash a snapshot must have.
+     */
+    @FunctionalInterface
+    private interface ExpectedContentHash {
+        /**
+         * @param withTeknonymies true if the snapshot stores rendered Teknonymies
+         * @return the expected content hash
+         */
+        long of(boolean withTeknonymies);
+    }
+
+    private static MappedSnapshot open(Path file, ExpectedContentHash expected, boolean verifyChecksum)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES)
+                throw new IOException("Not a snapshot file: " + file);
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a snapshot file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            boolean hasTeknonymies = (header.getInt() & HAS_TEKNONYMIES) != 0;
+            int size = header.getInt();
+            long contentHash = header.getLong();
+            long teknonymyBytes = header.getLong();
+            int checksum = header.getInt();
+
+            long expectedSize = HEADER_BYTES + 8L * size
+                    + (hasTeknonymies ? teknonymyBytes + 8L * (size + 1) : 0);
+            if (size < 1 || teknonymyBytes < 0 || teknonymyBytes > Integer.MAX_VALUE || fileSize != expectedSize)
+                throw new IOException("Corrupted snapshot file: " + file);
+            if (contentHash != expected.of(hasTeknonymies))
+                throw new IOException("Stale snapshot, it belongs to another version of the tree: " + file);
+
+            ByteBuffer generations = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 4L * size);
+            ByteBuffer oldest = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 4L * size, 4L * size);
+            ByteBuffer pool = null;
+            ByteBuffer offsets = null;
+            if (hasTeknonymies) {
+                pool = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 8L * size, teknonymyBytes);
+                offsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 8L * size + teknonymyBytes,
+                        8L * (size + 1));
+            }
+
+            if (verifyChecksum) {
+                CRC32C crc = new CRC32C();
+                for (ByteBuffer section : new ByteBuffer[]{generations, oldest, pool, offsets})
+                    if (section != null)
+                        crc.update(section.duplicate());
+                if ((int) crc.getValue() != checksum)
+                    throw new IOException("Corrupted snapshot file, wrong checksum: " + file);
+            }
+
+            return new MappedSnapshot(size, contentHash, generations.asIntBuffer(), oldest.asIntBuffer(), pool,
+                    offsets == null ? null : offsets.asLongBuffer());
+        }
+    }
+
+    /**
+     * Results read straight from a mapped {@link TeknonymySnapshot}.
+     * The buffers are only read with absolute gets, so it can be used by many threads at the same time.
+     */
+    static final class MappedSnapshot {
+
+        private final int size;
+        private final long contentHash;
+        private final IntBuffer generations;
+        private final IntBuffer oldest;
+        private final ByteBuffer teknonymyPool;
+        private final LongBuffer teknonymyOffsets;
+
+        private MappedSnapshot(int size, long contentHash, IntBuffer generations, IntBuffer oldest,
+                               ByteBuffer teknonymyPool, LongBuffer teknonymyOffsets) {
+            this.size = size;
+            this.contentHash = contentHash;
+            this.generations = generations;
+            this.oldest = oldest;
+            this.teknonymyPool = teknonymyPool;
+            this.teknonymyOffsets = teknonymyOffsets;
+        }
+
+        /**
+         * @return number of persons
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return content hash of the tree the snapshot belongs to
+         */
+        public long contentHash() {
+            return contentHash;
+        }
+
+        /**
+         * @param person index of a person
+         * @return number of generations below 'person' ('0' if they have no children)
+         */
+        public int getGenerations(int person) {
+            return generations.get(person);
+        }
+
+        /**
+         * @param person index of a person
+         * @return index of the oldest of the farthest descendants of 'person' ('person' if they have no children)
+         */
+        public int getOldestFarthestDescendant(int person) {
+            return oldest.get(person);
+        }
+
+        /**
+         * @return true if the rendered Teknonymies are stored, so {@link #getTeknonymy(int)} can be used
+         */
+        public boolean hasTeknonymies() {
+            return teknonymyPool != null;
+        }
+
+        /**
+         * Method to get a Person Teknonymy Name, as stored in the snapshot.
+         * @param person index of a person
+         * @return String which is the Teknonymy Name
+         * @throws IllegalStateException if the snapshot was written without Teknonymies
+         */
+        public String getTeknonymy(int person) {
+            if (teknonymyPool == null)
+                throw new IllegalStateException("The snapshot has no Teknonymies, use getTeknonymy(tree, person)");
+            int start = (int) teknonymyOffsets.get(person);
+            byte[] teknonymy = new byte[(int) teknonymyOffsets.get(person + 1) - start];
+            teknonymyPool.get(start, teknonymy);
+            return new String(teknonymy, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Method to get a Person Teknonymy Name, rendered with the names of 'tree'.
+         * @param tree family tree the snapshot belongs to
+         * @param person index of a person
+         * @return String which is the Teknonymy Name
+         */
+        public String getTeknonymy(ICompactFamilyTree tree, int person) {
+            return TeknonymyRenderer.render(Person.getParenthood(tree.sex(person)),
+                    tree.name(getOldestFarthestDescendant(person)), getGenerations(person));
+        }
+    }
+}
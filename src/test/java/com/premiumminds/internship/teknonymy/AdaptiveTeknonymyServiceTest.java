@@ -0,0 +1,75 @@
+package com.premiumminds.internship.teknonymy;
+
+import com.premiumminds.internship.teknonymy.AdaptiveTeknonymyService.Decision;
+import com.premiumminds.internship.teknonymy.AdaptiveTeknonymyService.Engine;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class AdaptiveTeknonymyServiceTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void SmallTreesAreRecursiveTest() {
+        AdaptiveTeknonymyService service = new AdaptiveTeknonymyService();
+
+        assertEquals("great-grandfather of Charles", service.getTeknonymy(TeknonymyServiceTest.getPerson1()));
+        assertEquals("great-great-great-grandmother of Stacey", service.getTeknonymy(TeknonymyServiceTest.getPerson2()));
+        assertEquals("great-great-grandfather of Person3", service.getTeknonymy(TeknonymyServiceTest.getPerson3()));
+        assertEquals(3, service.getDecisions(Engine.RECURSIVE));
+        assertEquals(0, service.getFallbacks());
+    }
+
+    @Test
+    public void TallTreesUseStackTest() {
+        AdaptiveTeknonymyService service = new AdaptiveTeknonymyService();
+        Person person = TeknonymyServiceTest.lineTreeGenerator(100_000);
+
+        Decision decision = service.decide(person);
+        assertEquals(Engine.STACK, decision.engine());
+        assertEquals(AdaptiveTeknonymyService.DEFAULT_MAX_RECURSIVE_GENERATIONS, decision.sampledGenerations());
+
+        assertEquals("great-".repeat(100_000 - 2) + "grandfather of Person100000", service.getTeknonymy(person));
+        assertEquals(1, service.getDecisions(Engine.STACK));
+    }
+
+    @Test
+    public void LargeTreesAreParallelTest() {
+        AdaptiveTeknonymyService service = new AdaptiveTeknonymyService(
+                new ParallelTeknonymyService(POOL), 16, 1000, 10_000);
+        Person person = TeknonymyServiceTest.completeTreeGenerator(4, 8);
+
+        Decision decision = service.decide(person);
+        assertEquals(Engine.PARALLEL, decision.engine());
+        assertEquals(7, decision.sampledGenerations());
+        assertEquals(4, decision.sampledMaxFanOut());
+        assertEquals(21845, decision.estimatedPersons(), 0); // Exact on complete trees
+
+        assertEquals(new TeknonymyService().getTeknonymy_rec(person), service.getTeknonymy(person));
+        assertEquals(1, service.getDecisions(Engine.PARALLEL));
+    }
+
+    @Test
+    public void StackOverflowFallbackTest() {
+        // Sampling never says the tree is tall, so the recursive engine overflows
+        AdaptiveTeknonymyService service = new AdaptiveTeknonymyService(
+                new ParallelTeknonymyService(), 1, Integer.MAX_VALUE, Long.MAX_VALUE);
+        Person person = TeknonymyServiceTest.lineTreeGenerator(100_000);
+
+        assertEquals("great-".repeat(100_000 - 2) + "grandfather of Person100000", service.getTeknonymy(person));
+        assertEquals(1, service.getDecisions(Engine.RECURSIVE));
+        assertEquals(1, service.getFallbacks());
+    }
+}
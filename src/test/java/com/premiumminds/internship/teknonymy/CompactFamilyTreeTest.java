@@ -0,0 +1,129 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CompactFamilyTreeTest {
+
+    @Test
+    public void ConversionTest() {
+        CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.getPerson1());
+
+        assertEquals(13, tree.size());
+        assertEquals("John", tree.name(tree.root()));
+        assertEquals('M', tree.sex(tree.root()));
+
+        // Breadth-first order: John, then Jack, Janice and Mark
+        assertEquals(3, tree.childCount(0));
+        assertEquals(1, tree.firstChild(0));
+        assertEquals("Jack", tree.name(1));
+        assertEquals("Janice", tree.name(2));
+        assertEquals("Mark", tree.name(3));
+        assertEquals(0, tree.childCount(2));
+
+        assertTrue(tree.isOlder(0, 1));
+        assertFalse(tree.isOlder(1, 0));
+    }
+
+    @Test
+    public void SubSecondDatesOfBirthTest() {
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person younger = new Person("Younger", 'F', null, date.plusNanos(2));
+        Person older = new Person("Older", 'M', null, date.plusNanos(1));
+        Person root = new Person("Root", 'F', new Person[]{younger, older}, date.minusYears(30));
+
+        CompactFamilyTree tree = CompactFamilyTree.of(root);
+
+        assertTrue(tree.isOlder(2, 1));
+        assertEquals("mother of Older", new CompactTeknonymyService().getTeknonymy(tree, tree.root()));
+    }
+
+    @Test
+    public void EveryPersonMatchesRecursiveTest() {
+        CompactTeknonymyService service = new CompactTeknonymyService();
+        for (int seed = 0; seed < 10; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(2000, seed);
+            Map<String, String> expected = new HashMap<>();
+            new TeknonymyService().forEachTeknonymy(root, (person, teknonymy) -> expected.put(person.name(), teknonymy));
+
+            CompactFamilyTree tree = CompactFamilyTree.of(root);
+            assertEquals(2000, tree.size());
+            for (int person = 0; person < tree.size(); person++)
+                assertEquals(expected.get(tree.name(person)), service.getTeknonymy(tree, person));
+        }
+    }
+
+    @Test
+    public void ChangedChildrenTest() {
+        CompactTeknonymyService service = new CompactTeknonymyService();
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person[] kids = {new Person("A", 'F', null, date.minusYears(30))};
+        Person root = new Person("Root", 'M', kids, date.minusYears(60));
+        CountingTeknonymyService.TraversalCounter counter = new CountingTeknonymyService.TraversalCounter();
+
+        assertEquals("father of A", service.getTeknonymy(root, counter));
+        // The same person, whose tree changed in place
+        kids[0] = new Person("B", 'M', new Person[]{new Person("C", 'F', null, date)}, date.minusYears(30));
+        assertEquals(new TeknonymyService().getTeknonymy_rec(root), service.getTeknonymy(root, counter));
+        assertEquals("grandfather of C", service.getTeknonymy(root));
+        assertEquals(2 + 3, counter.personsVisited());
+    }
+
+    @Test
+    public void FootprintTest() {
+        // Names are the same String objects in both representations, so they are left out of both estimates
+        Person root = TeknonymyServiceTest.randomTreeGenerator(100_000, 0);
+        long personBytes = estimatedBytes(root);
+        long compactBytes = CompactFamilyTree.of(root).estimatedBytes();
+
+        // At least 3 times smaller
+        assertTrue(personBytes + " bytes as Person records, " + compactBytes + " bytes compact",
+                compactBytes * 3 <= personBytes);
+    }
+
+    /**
+     * Estimate of the heap retained by the {@link Person} records of a tree, their dates of birth and their
+     * 'children' arrays, in bytes, with the same assumptions as {@link CompactFamilyTree#estimatedBytes()}. Objects
+     * shared by several persons (e.g. cached 'LocalTime' instances or boxed characters) are counted once.
+     */
+    private static long estimatedBytes(Person root) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Person> stack = new ArrayDeque<>();
+        stack.push(root);
+        long bytes = 0;
+        while (!stack.isEmpty()) {
+            Person person = stack.pop();
+            bytes += 32; // Header and 4 references
+            if (seen.add(person.sex()))
+                bytes += 16; // Header and a char
+            LocalDateTime dateOfBirth = person.dateOfBirth();
+            if (seen.add(dateOfBirth))
+                bytes += 24; // Header and 2 references
+            if (seen.add(dateOfBirth.toLocalDate()))
+                bytes += 24; // Header, an int and 2 shorts
+            if (seen.add(dateOfBirth.toLocalTime()))
+                bytes += 24; // Header, 3 bytes and an int
+            if (person.children() != null) {
+                bytes += CompactFamilyTree.estimatedArrayBytes(person.children().length, 4);
+                for (Person child : person.children())
+                    stack.push(child);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ConcurrentTeknonymyServiceTest {
+
+    @Test
+    public void BatchTest() {
+        Person person1 = TeknonymyServiceTest.getPerson1();
+        Person person2 = TeknonymyServiceTest.getPerson2();
+        AtomicInteger calls = new AtomicInteger();
+
+        try (ConcurrentTeknonymyService service = new ConcurrentTeknonymyService(() -> person -> {
+            calls.incrementAndGet();
+            return new StackTeknonymyService().getTeknonymy(person);
+        }, 2, 1, 1000, 4)) {
+            List<String> result = service.getTeknonymies(List.of(person1, person2, person1, person1));
+
+            assertEquals(List.of("great-grandfather of Charles", "great-great-great-grandmother of Stacey",
+                    "great-grandfather of Charles", "great-grandfather of Charles"), result);
+            assertEquals(2, calls.get()); // Repeated persons are computed only once
+        }
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        List<Person> persons = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int seed = 0; seed < 50; seed++) {
+            Person person = TeknonymyServiceTest.randomTreeGenerator(seed * 100 + 1, seed);
+            persons.add(person);
+            expected.add(new TeknonymyService().getTeknonymy_rec(person));
+        }
+
+        try (ConcurrentTeknonymyService service = new ConcurrentTeknonymyService()) {
+            assertEquals(expected, service.getTeknonymies(persons));
+        }
+        // Default implementation, on an engine that is not thread-safe
+        assertEquals(expected, new StackTeknonymyService().getTeknonymies(persons));
+    }
+
+    @Test
+    public void ConcurrencyLimitTest() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try (ConcurrentTeknonymyService service = new ConcurrentTeknonymyService(() -> person -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return "";
+        }, 3, 1, 1000, 8)) {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++)
+                futures.add(service.getTeknonymyAsync(TeknonymyServiceTest.getPerson2()));
+            futures.forEach(CompletableFuture::join);
+        }
+
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void LargeTreesDoNotStarveSmallOnesTest() throws InterruptedException {
+        Person large = TeknonymyServiceTest.randomTreeGenerator(200, 0);
+        Person small = TeknonymyServiceTest.getPerson2();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ConcurrentTeknonymyService service = new ConcurrentTeknonymyService(() -> person -> {
+            if (person == large)
+                await(release);
+            return new StackTeknonymyService().getTeknonymy(person);
+        }, 2, 1, 100, 16)) {
+            List<CompletableFuture<String>> largeFutures = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                largeFutures.add(service.getTeknonymyAsync(large));
+
+            // Every large tree is stuck, but small trees still have a free slot
+            assertEquals("great-great-great-grandmother of Stacey",
+                    service.getTeknonymyAsync(small).orTimeout(10, TimeUnit.SECONDS).join());
+            assertFalse(largeFutures.stream().anyMatch(CompletableFuture::isDone));
+
+            release.countDown();
+            largeFutures.forEach(CompletableFuture::join);
+        }
+    }
+
+    @Test
+    public void ExceptionTest() {
+        Person person = TeknonymyServiceTest.getPerson2();
+
+        try (ConcurrentTeknonymyService service = new ConcurrentTeknonymyService(() -> p -> {
+            throw new IllegalStateException("Broken engine");
+        }, 2, 1, 10, 2)) {
+            assertThrows(IllegalStateException.class, () -> service.getTeknonymy(person));
+        }
+    }
+
+    @Test
+    public void InvalidLimitsTest() {
+        // Large trees could take every slot
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrentTeknonymyService(StackTeknonymyService::new, 2, 2, 10, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrentTeknonymyService(StackTeknonymyService::new, 1, 1, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrentTeknonymyService(StackTeknonymyService::new, 2, 1, 10, 1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
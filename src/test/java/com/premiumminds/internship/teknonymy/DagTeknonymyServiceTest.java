@@ -0,0 +1,119 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class DagTeknonymyServiceTest {
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        TeknonymyService recursive = new TeknonymyService();
+        // Tiny memo, so that it is rotated many times during each search
+        DagTeknonymyService service = new DagTeknonymyService(16);
+        for (int seed = 0; seed < 20; seed++) {
+            Person person = TeknonymyServiceTest.randomTreeGenerator(5000, seed);
+            assertEquals(recursive.getTeknonymy_rec(person), service.getTeknonymy(person));
+            assertTrue(service.memoSize() <= 32);
+        }
+    }
+
+    @Test
+    public void SharedChildrenTest() {
+        // Both parents have the same children: 2^60 paths from the root to the last generation
+        Person root = collapsedPedigree(60);
+        DagTeknonymyService service = new DagTeknonymyService();
+
+        String expected = "great-".repeat(58) + "grandfather of Gen60-A";
+        assertEquals(expected, service.getTeknonymy(root));
+        assertEquals(expected, service.getTeknonymy(root)); // From the memo
+        assertEquals(2 * 59 + 1, service.memoSize());
+
+        service.clear();
+        assertEquals(0, service.memoSize());
+        assertEquals(expected, service.getTeknonymy(root));
+    }
+
+    @Test
+    public void SmallCollapsedPedigreeMatchesRecursiveTest() {
+        Person root = collapsedPedigree(12);
+        assertEquals(new TeknonymyService().getTeknonymy_rec(root), new DagTeknonymyService(4).getTeknonymy(root));
+    }
+
+    @Test
+    public void SharedDescendantsQueriesTest() {
+        DagTeknonymyService service = new DagTeknonymyService();
+        Person small = collapsedPedigree(3);
+        assertEquals(List.of("Gen3-A", "Gen3-B", "Gen2-A", "Gen2-B", "Gen1-A", "Gen1-B"),
+                names(service.getOldestFarthestDescendants(small, 10)));
+        assertEquals("Gen2-A", service.getOldestDescendantAtGeneration(small, 2).name());
+
+        // 2^60 paths: each person must be searched only once
+        Person root = collapsedPedigree(60);
+        assertEquals(List.of("Gen60-A", "Gen60-B", "Gen59-A"), names(service.getOldestFarthestDescendants(root, 3)));
+        assertEquals(60, service.getGenerations(root));
+        assertEquals("Gen60-A", service.getOldestDescendantAtGeneration(root, 60).name());
+        assertEquals("Gen30-A", service.getOldestDescendantAtGeneration(root, 30).name());
+        assertNull(service.getOldestDescendantAtGeneration(root, 61));
+    }
+
+    @Test
+    public void DescendantOnPathsOfDifferentLengthsTest() {
+        // Y is a child of both Root and X, so they are in generations 1 and 2
+        Person z = new Person("Z", 'F', null, LocalDateTime.of(1990, 1, 1, 0, 0));
+        Person y = new Person("Y", 'M', new Person[]{z}, LocalDateTime.of(1960, 1, 1, 0, 0));
+        Person x = new Person("X", 'F', new Person[]{y}, LocalDateTime.of(1930, 1, 1, 0, 0));
+        Person root = new Person("Root", 'M', new Person[]{y, x}, LocalDateTime.of(1900, 1, 1, 0, 0));
+        DagTeknonymyService service = new DagTeknonymyService();
+
+        assertEquals("great-grandfather of Z", service.getTeknonymy(root));
+        // Ranked at their farthest generation
+        assertEquals(List.of(z, y, x), service.getOldestFarthestDescendants(root, 5));
+        // In every generation that one of their paths reaches
+        assertSame(x, service.getOldestDescendantAtGeneration(root, 1));
+        assertSame(y, service.getOldestDescendantAtGeneration(root, 2));
+        assertSame(z, service.getOldestDescendantAtGeneration(root, 3));
+    }
+
+    @Test
+    public void RandomTreesQueriesMatchRecursiveTest() {
+        TeknonymyService recursive = new TeknonymyService();
+        DagTeknonymyService service = new DagTeknonymyService(16);
+        for (int seed = 0; seed < 10; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(2000, seed);
+            for (int k : new int[]{1, 5, 50})
+                assertEquals(recursive.getOldestFarthestDescendants(root, k),
+                        service.getOldestFarthestDescendants(root, k));
+            for (int g = 1; g <= 8; g++)
+                assertSame(recursive.getOldestDescendantAtGeneration(root, g),
+                        service.getOldestDescendantAtGeneration(root, g));
+        }
+    }
+
+    private static List<String> names(List<Person> persons) {
+        return persons.stream().map(Person::name).toList();
+    }
+
+    /**
+     * Root, followed by 'generations' generations of two persons (A and B), where both A and B have the next
+     * generation as their children. Person A is always the oldest of their generation.
+     */
+    private static Person collapsedPedigree(int generations) {
+        Person[] children = null;
+        for (int g = generations; g >= 1; g--) {
+            Person a = new Person("Gen" + g + "-A", 'M', children, LocalDateTime.of(1000 + g * 30, 1, 1, 0, 0));
+            Person b = new Person("Gen" + g + "-B", 'F', children, LocalDateTime.of(1001 + g * 30, 1, 1, 0, 0));
+            children = new Person[]{b, a};
+        }
+        return new Person("Root", 'M', children, LocalDateTime.of(1000, 1, 1, 0, 0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class DescendantQueriesTest {
+
+    @Test
+    public void ExampleTreeTest() {
+        Person root = TeknonymyServiceTest.getPerson1();
+        for (ITeknonymyService service : List.of(new TeknonymyService(), new TeknonymyIndex(root))) {
+            assertEquals(List.of("Charles", "Marisa", "Allen"), names(service.getOldestFarthestDescendants(root, 3)));
+            assertEquals(List.of("Charles", "Marisa", "Allen", "Clark", "Lori", "Joseph", "Amy"),
+                    names(service.getOldestFarthestDescendants(root, 7)));
+            assertEquals(12, service.getOldestFarthestDescendants(root, 100).size());
+            assertEquals(List.of(), service.getOldestFarthestDescendants(root, 0));
+            assertEquals(List.of(), service.getOldestFarthestDescendants(root.children()[1], 5)); // Janice
+
+            assertSame(root, service.getOldestDescendantAtGeneration(root, 0));
+            assertEquals("Jack", service.getOldestDescendantAtGeneration(root, 1).name());
+            assertEquals("Joseph", service.getOldestDescendantAtGeneration(root, 2).name()); // Born with Amy and Carol
+            assertEquals("Charles", service.getOldestDescendantAtGeneration(root, 3).name());
+            assertNull(service.getOldestDescendantAtGeneration(root, 4));
+
+            assertThrows(IllegalArgumentException.class, () -> service.getOldestFarthestDescendants(root, -1));
+            assertThrows(IllegalArgumentException.class, () -> service.getOldestDescendantAtGeneration(root, -1));
+        }
+    }
+
+    @Test
+    public void RandomTreesMatchBruteForceTest() {
+        for (int seed = 0; seed < 20; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(2000, seed);
+            TeknonymyIndex index = new TeknonymyIndex(root);
+            List<Descendant> expected = allDescendants(root);
+            int height = expected.get(0).depth();
+
+            for (int k : new int[]{1, 5, 50, expected.size() + 1}) {
+                List<Person> expectedPersons = new ArrayList<>();
+                expected.stream().limit(k).forEach(d -> expectedPersons.add(d.person()));
+                assertEquals(expectedPersons, new TeknonymyService().getOldestFarthestDescendants(root, k));
+                assertEquals(expectedPersons, index.getOldestFarthestDescendants(root, k));
+            }
+            assertSame(index.getOldestFarthestDescendant(root), index.getOldestFarthestDescendants(root, 1).get(0));
+
+            for (int g = 1; g <= height + 1; g++) {
+                int generation = g;
+                Person oldest = expected.stream().filter(d -> d.depth() == generation).map(Descendant::person)
+                        .findFirst().orElse(null);
+                assertSame(oldest, new TeknonymyService().getOldestDescendantAtGeneration(root, g));
+                assertSame(oldest, index.getOldestDescendantAtGeneration(root, g));
+            }
+        }
+    }
+
+    @Test
+    public void PruningTest() {
+        // A long lineage next to a big, shallow family
+        LocalDateTime date = LocalDateTime.of(1000, 1, 1, 0, 0);
+        Person lineage = null;
+        for (int i = 1000; i >= 1; i--)
+            lineage = new Person("Lineage" + i, 'M', lineage == null ? null : new Person[]{lineage},
+                    date.plusYears(i));
+        Person family = TeknonymyServiceTest.completeTreeGenerator(4, 7); // 5461 persons
+        Person root = new Person("Root", 'F', new Person[]{family, lineage}, date);
+
+        TeknonymyIndex index = new TeknonymyIndex(root);
+        AtomicInteger visits = new AtomicInteger();
+        ToIntFunction<Person> generations = person -> {
+            visits.incrementAndGet();
+            return index.getGenerations(person);
+        };
+
+        assertEquals("Lineage1000", DescendantQueries.getOldestFarthestDescendants(root, 1, generations).get(0).name());
+        assertTrue("Visited " + visits.get(), visits.get() <= 1010); // The lineage, not the 6462 persons
+
+        visits.set(0);
+        assertEquals(List.of("Lineage1000", "Lineage999", "Lineage998"),
+                names(DescendantQueries.getOldestFarthestDescendants(root, 3, generations)));
+        assertTrue("Visited " + visits.get(), visits.get() <= 3 * 1010);
+
+        visits.set(0);
+        assertEquals("Lineage500", DescendantQueries.getOldestDescendantAtGeneration(root, 500, generations).name());
+        assertTrue("Visited " + visits.get(), visits.get() <= 510);
+    }
+
+    // ===== AUX METHODS =====
+
+    private record Descendant(Person person, int depth, int preOrder) {
+    }
+
+    /**
+     * Every descendant of 'root', sorted deepest first, then oldest first, then in depth-first order.
+     */
+    private static List<Descendant> allDescendants(Person root) {
+        List<Descendant> descendants = new ArrayList<>();
+        collect(root, 0, descendants);
+        descendants.remove(0); // 'root'
+        descendants.sort(Comparator.comparingInt(Descendant::depth).reversed()
+                .thenComparing(d -> d.person().dateOfBirth())
+                .thenComparingInt(Descendant::preOrder));
+        return descendants;
+    }
+
+    private static void collect(Person person, int depth, List<Descendant> descendants) {
+        descendants.add(new Descendant(person, depth, descendants.size()));
+        if (person.children() != null)
+            for (Person child : person.children())
+                collect(child, depth + 1, descendants);
+    }
+
+    private static List<String> names(List<Person> persons) {
+        return persons.stream().map(Person::name).toList();
+    }
+}
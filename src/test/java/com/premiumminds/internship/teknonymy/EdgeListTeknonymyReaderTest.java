@@ -0,0 +1,211 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class EdgeListTeknonymyReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ExampleTest() throws IOException {
+        String csv = """
+                id,parentId,name,sex,dateOfBirth
+                1,,Kim,F,2000-01-01T00:00
+                2,1,Gregory,M,2001-01-01T00:00
+                3,2,Jerry,M,2002-01-01T00:00
+                4,2,Jenny,F,2002-01-01T00:00:00.5
+                5,,Solo,M,1990-05-05T10:15:30
+                """;
+        Map<Long, String> result = read(new EdgeListTeknonymyReader(), csv);
+
+        assertEquals(5, result.size());
+        assertEquals("grandmother of Jerry", result.get(1L));
+        assertEquals("father of Jerry", result.get(2L));
+        assertEquals("", result.get(3L));
+        assertEquals("", result.get(5L));
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() throws IOException {
+        // Tiny buffer, so that rows are split between reads
+        EdgeListTeknonymyReader reader = new EdgeListTeknonymyReader(7);
+        TeknonymyService service = new TeknonymyService();
+
+        for (int seed = 0; seed < 5; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(3000, seed);
+            Path file = folder.newFile().toPath();
+            Map<Long, Person> persons = writeCsv(root, file, new Random(seed));
+            Map<Person, String> expected = service.getAllTeknonymies(root);
+
+            Map<Long, String> result = new HashMap<>();
+            reader.read(file, (id, name, teknonymy) -> {
+                assertEquals(persons.get(id).name(), name);
+                result.put(id, teknonymy);
+            });
+
+            assertEquals(expected.size(), result.size());
+            result.forEach((id, teknonymy) -> assertEquals(expected.get(persons.get(id)), teknonymy));
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthMatchRecursiveTest() throws IOException {
+        EdgeListTeknonymyReader reader = new EdgeListTeknonymyReader();
+        TeknonymyService service = new TeknonymyService();
+
+        for (int seed = 0; seed < 5; seed++) {
+            Person root = TeknonymyServiceTest.randomTiedTreeGenerator(3000, seed, 1 + seed % 3);
+            Path file = folder.newFile().toPath();
+            Map<Long, Person> persons = writeCsv(root, file, new Random(seed));
+            Map<Person, String> expected = service.getAllTeknonymies(root);
+
+            Map<Long, String> result = new HashMap<>();
+            reader.read(file, (id, name, teknonymy) -> result.put(id, teknonymy));
+
+            assertEquals(expected.size(), result.size());
+            result.forEach((id, teknonymy) -> assertEquals(expected.get(persons.get(id)), teknonymy));
+        }
+    }
+
+    @Test
+    public void DescendantsComeFirstTest() throws IOException {
+        List<Long> order = new ArrayList<>();
+        new EdgeListTeknonymyReader().read(channel("1,,A,F,2000-01-01T00:00\n2,1,B,M,2020-01-01T00:00\n"
+                + "3,2,C,F,2040-01-01T00:00\n4,1,D,F,2021-01-01T00:00\n"), (id, name, teknonymy) -> order.add(id));
+
+        assertEquals(List.of(3L, 2L, 4L, 1L), order);
+    }
+
+    @Test
+    public void MalformedTest() {
+        EdgeListTeknonymyReader reader = new EdgeListTeknonymyReader();
+
+        // Parent 2 was already complete when 3 showed up
+        assertThrows(IOException.class, () -> read(reader, """
+                1,,A,F,2000-01-01T00:00
+                2,1,B,M,2020-01-01T00:00
+                4,1,D,F,2021-01-01T00:00
+                3,2,C,F,2040-01-01T00:00
+                """));
+        assertThrows(IOException.class, () -> read(reader, "1,,A,F\n"));
+        assertThrows(IOException.class, () -> read(reader, "1,,A,F,yesterday\n"));
+        assertThrows(IOException.class, () -> read(reader, "x,,A,F,2000-01-01T00:00\n"));
+        assertThrows(IOException.class, () -> read(reader, "-,,A,F,2000-01-01T00:00\n"));
+        assertThrows(IOException.class, () -> read(reader, "9223372036854775808,,A,F,2000-01-01T00:00\n"));
+        assertThrows(IOException.class, () -> read(reader, "-9223372036854775809,,A,F,2000-01-01T00:00\n"));
+    }
+
+    @Test
+    public void DuplicatedIdTest() throws IOException {
+        EdgeListTeknonymyReader reader = new EdgeListTeknonymyReader();
+
+        // Same id as the previous sibling, whose subtree is only complete when this row shows up
+        assertThrows(IOException.class, () -> read(reader, """
+                1,,A,F,2000-01-01T00:00
+                2,1,B,M,2020-01-01T00:00
+                2,1,C,F,2021-01-01T00:00
+                """));
+        // Same id as an ancestor
+        assertThrows(IOException.class, () -> read(reader, """
+                1,,A,F,2000-01-01T00:00
+                2,1,B,M,2020-01-01T00:00
+                1,2,C,F,2040-01-01T00:00
+                """));
+
+        List<Long> ids = new ArrayList<>();
+        reader.read(channel("9223372036854775807,,A,F,2000-01-01T00:00\n-9223372036854775808,,B,M,2000-01-01T00:00\n"),
+                (id, name, teknonymy) -> ids.add(id));
+        assertEquals(List.of(Long.MAX_VALUE, Long.MIN_VALUE), ids);
+    }
+
+    @Test
+    public void LongIntMapTest() {
+        EdgeListTeknonymyReader.LongIntMap map = new EdgeListTeknonymyReader.LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(500) * 1024L; // Many collisions
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int k = 0; k < 500; k++)
+            assertEquals((int) expected.getOrDefault(k * 1024L, -1), map.get(k * 1024L));
+    }
+
+    private static Map<Long, String> read(EdgeListTeknonymyReader reader, String csv) throws IOException {
+        Map<Long, String> result = new HashMap<>();
+        reader.read(channel(csv), (id, name, teknonymy) -> result.put(id, teknonymy));
+        return result;
+    }
+
+    private static ReadableByteChannel channel(String csv) {
+        return Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes the tree in depth-first pre-order, with random ids.
+     * @return persons by id
+     */
+    private static Map<Long, Person> writeCsv(Person root, Path file, Random random) throws IOException {
+        Map<Long, Person> persons = new HashMap<>();
+        Map<Person, Long> ids = new IdentityHashMap<>();
+        StringBuilder csv = new StringBuilder("id,parentId,name,sex,dateOfBirth\r\n");
+
+        Deque<Person[]> stack = new ArrayDeque<>(); // {person, parent}
+        stack.push(new Person[]{root, null});
+        while (!stack.isEmpty()) {
+            Person[] entry = stack.pop();
+            long id;
+            do {
+                id = random.nextLong();
+            } while (persons.containsKey(id));
+            persons.put(id, entry[0]);
+            ids.put(entry[0], id);
+
+            csv.append(id).append(',').append(entry[1] == null ? "" : ids.get(entry[1])).append(',')
+                    .append(entry[0].name()).append(',').append(entry[0].sex()).append(',')
+                    .append(entry[0].dateOfBirth()).append("\r\n");
+
+            Person[] children = entry[0].children();
+            if (children != null)
+                for (int i = children.length - 1; i >= 0; i--) // Reversed, so they are popped in order
+                    stack.push(new Person[]{children[i], entry[0]});
+        }
+
+        Files.writeString(file, csv);
+        return persons;
+    }
+}
@@ -0,0 +1,78 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class FamilyTreeFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ExampleTreeTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        FamilyTreeFile.write(TeknonymyServiceTest.getPerson1(), file);
+
+        FamilyTreeFile.MappedFamilyTree tree = FamilyTreeFile.open(file);
+        CompactTeknonymyService service = new CompactTeknonymyService();
+
+        assertEquals(13, tree.size());
+        assertEquals("John", tree.name(tree.root()));
+        assertEquals("great-grandfather of Charles", service.getTeknonymy(tree, tree.root()));
+        assertEquals("grandfather of Marisa", service.getTeknonymy(tree, 1)); // Jack
+        assertEquals("", service.getTeknonymy(tree, 2)); // Janice
+    }
+
+    @Test
+    public void SameAsCompactTreeTest() throws IOException {
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person root = new Person("Zoë", 'F', new Person[]{
+                new Person("Émile", 'M', null, date.plusNanos(2)),
+                new Person("Ana", 'F', null, date.plusNanos(1))
+        }, date.minusYears(30));
+
+        for (Person person : new Person[]{root, TeknonymyServiceTest.randomTreeGenerator(5000, 7)}) {
+            Path file = folder.newFile().toPath();
+            FamilyTreeFile.write(person, file);
+
+            CompactFamilyTree expected = CompactFamilyTree.of(person);
+            FamilyTreeFile.MappedFamilyTree tree = FamilyTreeFile.open(file);
+            CompactTeknonymyService service = new CompactTeknonymyService();
+
+            assertEquals(expected.size(), tree.size());
+            for (int i = 0; i < tree.size(); i++) {
+                assertEquals(expected.name(i), tree.name(i));
+                assertEquals(expected.sex(i), tree.sex(i));
+                assertEquals(expected.childCount(i), tree.childCount(i));
+                assertEquals(service.getTeknonymy(expected, i), service.getTeknonymy(tree, i));
+            }
+        }
+    }
+
+    @Test
+    public void InvalidFileTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        FamilyTreeFile.write(TeknonymyServiceTest.getPerson2(), file);
+
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+        assertThrows(IOException.class, () -> FamilyTreeFile.open(file));
+
+        content[0] = 'X';
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> FamilyTreeFile.open(file));
+    }
+}
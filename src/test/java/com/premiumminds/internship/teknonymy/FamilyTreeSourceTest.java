@@ -0,0 +1,171 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class FamilyTreeSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ExampleTreesTest() {
+        TeknonymyService service = new TeknonymyService();
+
+        assertEquals("great-grandfather of Charles",
+                service.getTeknonymy(FamilyTreeSource.of(TeknonymyServiceTest.getPerson1())));
+        assertEquals("great-great-great-grandmother of Stacey",
+                service.getTeknonymy(FamilyTreeSource.of(TeknonymyServiceTest.getPerson2())));
+        assertEquals("great-great-grandfather of Person3",
+                service.getTeknonymy(FamilyTreeSource.of(TeknonymyServiceTest.getPerson3())));
+    }
+
+    @Test
+    public void BackendsMatchRecursiveTest() throws IOException {
+        TeknonymyService service = new TeknonymyService();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int seed = 0; seed < 10; seed++) {
+                Person root = TeknonymyServiceTest.randomTreeGenerator(3000, seed);
+                String expected = service.getTeknonymy_rec(root);
+                Path file = folder.newFile().toPath();
+                FamilyTreeFile.write(root, file);
+
+                assertEquals(expected, service.getTeknonymy(FamilyTreeSource.of(root)));
+                assertEquals(expected, service.getTeknonymy(FamilyTreeSource.of(CompactFamilyTree.of(root))));
+                assertEquals(expected, service.getTeknonymy(FamilyTreeSource.of(FamilyTreeFile.open(file))));
+                assertEquals(expected, service.getTeknonymy(
+                        new PrefetchingFamilyTreeSource<>(FamilyTreeSource.of(root), 3, executor)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void PrefetchingBatchesTest() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 8 children: exactly two full batches of 4, then an empty one
+            Person root = TeknonymyServiceTest.completeTreeGenerator(8, 2);
+            PrefetchingFamilyTreeSource<Person> source =
+                    new PrefetchingFamilyTreeSource<>(FamilyTreeSource.of(root), 4, executor);
+
+            Iterator<Person> children = source.children(root);
+            for (Person child : root.children())
+                assertEquals(child, children.next());
+            assertFalse(children.hasNext());
+            assertThrows(NoSuchElementException.class, children::next);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void VirtualTreeTest() {
+        // Generated while it is traversed, so only the children iterators of the current path are ever held
+        VirtualFamilyTree tree = new VirtualFamilyTree(2, 1_000_000L);
+        assertEquals(tree.expectedTeknonymy(), new TeknonymyService().getTeknonymy(tree));
+
+        assertEquals(1_000_000L, tree.created);
+        assertEquals(0, tree.open);
+        assertEquals(tree.generations() + 1, tree.maxOpen); // One per generation of the deepest path
+    }
+
+    /**
+     * Complete 'n'-ary tree of 'size' persons, numbered in breadth-first order, that only exists while it is being
+     * traversed. Persons with greater numbers are older, so the answer is always the last person.
+     * It counts the children iterators that were created, and those that are not exhausted yet.
+     */
+    private static final class VirtualFamilyTree implements FamilyTreeSource<Long> {
+
+        private final int n;
+        private final long size;
+        private long created;
+        private int open;
+        private int maxOpen;
+
+        private VirtualFamilyTree(int n, long size) {
+            this.n = n;
+            this.size = size;
+        }
+
+        @Override
+        public Long root() {
+            return 0L;
+        }
+
+        @Override
+        public Iterator<Long> children(Long person) {
+            long first = n * person + 1;
+            long end = Math.min(first + n, size);
+            created++;
+            maxOpen = Math.max(maxOpen, ++open);
+            return new Iterator<>() {
+                private long next = first;
+                private boolean exhausted;
+
+                @Override
+                public boolean hasNext() {
+                    if (next < end)
+                        return true;
+                    if (!exhausted) {
+                        exhausted = true;
+                        open--;
+                    }
+                    return false;
+                }
+
+                @Override
+                public Long next() {
+                    if (next >= end)
+                        throw new NoSuchElementException();
+                    return next++;
+                }
+            };
+        }
+
+        @Override
+        public boolean isOlder(Long person, Long other) {
+            return person > other;
+        }
+
+        @Override
+        public char sex(Long person) {
+            return person % 2 == 0 ? 'M' : 'F';
+        }
+
+        @Override
+        public String name(Long person) {
+            return "Person" + person;
+        }
+
+        int generations() {
+            int generations = 0;
+            for (long levelStart = 1, levelSize = n; levelStart < size; levelSize *= n) {
+                generations++;
+                levelStart += levelSize;
+            }
+            return generations;
+        }
+
+        String expectedTeknonymy() {
+            return TeknonymyRenderer.render("father", "Person" + (size - 1), generations());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.premiumminds.internship.teknonymy;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class InstrumentedTeknonymyServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void MetricsTest() {
+        JmxTeknonymyMetrics metrics = new JmxTeknonymyMetrics();
+        InstrumentedTeknonymyService service =
+                new InstrumentedTeknonymyService(new StackTeknonymyService(), metrics);
+
+        assertEquals("great-grandfather of Charles", service.getTeknonymy(TeknonymyServiceTest.getPerson1()));
+        assertEquals("great-great-great-grandmother of Stacey",
+                service.getTeknonymyAsync(TeknonymyServiceTest.getPerson2()).join());
+
+        assertEquals(2, metrics.getCalls());
+        assertEquals(0, metrics.getFailures());
+        assertTrue(metrics.getMaxNanos() > 0);
+        assertTrue(metrics.getTotalNanos() >= metrics.getMaxNanos());
+        assertEquals(2, Arrays.stream(metrics.getLatencyHistogram()).sum());
+
+        metrics.reset();
+        assertEquals(0, metrics.getCalls());
+        assertEquals(0, Arrays.stream(metrics.getLatencyHistogram()).sum());
+    }
+
+    @Test
+    public void FailureTest() {
+        JmxTeknonymyMetrics metrics = new JmxTeknonymyMetrics();
+        InstrumentedTeknonymyService service = new InstrumentedTeknonymyService(person -> {
+            throw new IllegalStateException("boom");
+        }, metrics);
+
+        assertThrows(IllegalStateException.class, () -> service.getTeknonymy(TeknonymyServiceTest.getPerson1()));
+        assertEquals(1, metrics.getCalls());
+        assertEquals(1, metrics.getFailures());
+    }
+
+    @Test
+    public void DisabledTest() {
+        InstrumentedTeknonymyService service = new InstrumentedTeknonymyService(new StackTeknonymyService());
+
+        assertEquals("great-grandfather of Charles", service.getTeknonymy(TeknonymyServiceTest.getPerson1()));
+    }
+
+    @Test
+    public void JfrEventTest() throws Exception {
+        Path file = folder.newFile("teknonymy.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(TeknonymyEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            new InstrumentedTeknonymyService(new StackTeknonymyService(), "stack", null)
+                    .getTeknonymy(TeknonymyServiceTest.getPerson2());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("com.premiumminds.internship.teknonymy.Teknonymy"))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("stack", event.getString("engine"));
+        assertEquals("Kim", event.getString("person"));
+        assertEquals(6, event.getLong("personsVisited"));
+        assertEquals(5, event.getInt("maxDepth"));
+        assertEquals(1, event.getInt("maxFanOut"));
+        assertFalse(event.getBoolean("failed"));
+    }
+
+    @Test
+    public void JfrEventNotCountedTest() throws Exception {
+        Path file = folder.newFile("teknonymy.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(TeknonymyEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            new InstrumentedTeknonymyService(new DagTeknonymyService(), "dag", null)
+                    .getTeknonymy(TeknonymyServiceTest.getPerson2());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("com.premiumminds.internship.teknonymy.Teknonymy"))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals(-1, events.get(0).getLong("personsVisited"));
+        assertEquals(-1, events.get(0).getInt("maxDepth"));
+        assertEquals(-1, events.get(0).getInt("maxFanOut"));
+    }
+
+    @Test
+    public void TraversalCounterTest() {
+        Person root = TeknonymyServiceTest.completeTreeGenerator(3, 4);
+        Person line = TeknonymyServiceTest.lineTreeGenerator(100);
+        CountingTeknonymyService.TraversalCounter counter = new CountingTeknonymyService.TraversalCounter();
+        StackTeknonymyService stack = new StackTeknonymyService();
+
+        stack.getTeknonymy(root, counter);
+        assertEquals(1 + 3 + 9 + 27, counter.personsVisited());
+        assertEquals(3, counter.maxDepth());
+        assertEquals(3, counter.maxFanOut());
+
+        // The same instance, with arrays grown by a taller tree, counts from scratch on every call
+        stack.getTeknonymy(line, null);
+        CountingTeknonymyService.TraversalCounter compactCounter = new CountingTeknonymyService.TraversalCounter();
+        new CompactTeknonymyService().getTeknonymy(root, compactCounter);
+        stack.getTeknonymy(root, counter);
+        assertEquals(2 * (1 + 3 + 9 + 27), counter.personsVisited());
+        assertEquals(3, counter.maxDepth());
+        assertEquals(1 + 3 + 9 + 27, compactCounter.personsVisited());
+        assertEquals(3, compactCounter.maxDepth());
+        assertEquals(3, compactCounter.maxFanOut());
+
+        stack.getTeknonymy(line, counter);
+        assertEquals(100, counter.maxDepth());
+    }
+
+    @Test
+    public void CountingEnginesAgreeTest() {
+        AdaptiveTeknonymyService adaptive = new AdaptiveTeknonymyService();
+        for (int seed = 0; seed < 5; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(3000, seed);
+            List<CountingTeknonymyService> engines = List.of(new TeknonymyService(), new StackTeknonymyService(),
+                    new CompactTeknonymyService(), adaptive);
+            CountingTeknonymyService.TraversalCounter expected = new CountingTeknonymyService.TraversalCounter();
+            new StackTeknonymyService().getTeknonymy(root, expected);
+            assertEquals(3000, expected.personsVisited());
+
+            for (CountingTeknonymyService engine : engines) {
+                CountingTeknonymyService.TraversalCounter counter = new CountingTeknonymyService.TraversalCounter();
+                engine.getTeknonymy(root, counter);
+                assertEquals(expected.personsVisited(), counter.personsVisited());
+                assertEquals(expected.maxDepth(), counter.maxDepth());
+                assertEquals(expected.maxFanOut(), counter.maxFanOut());
+            }
+        }
+
+        // Default engine of the exercise, through the wrapper
+        CountingTeknonymyService.TraversalCounter counter = new CountingTeknonymyService.TraversalCounter();
+        new TeknonymyService().getTeknonymy(TeknonymyServiceTest.getPerson1(), counter);
+        assertEquals(13, counter.personsVisited());
+        assertEquals(3, counter.maxDepth());
+        assertEquals(4, counter.maxFanOut());
+    }
+
+    @Test
+    public void OverflowedSearchIsNotCountedTest() {
+        // Sampling never says the tree is tall, so the recursive engine overflows and the explicit stack is used
+        AdaptiveTeknonymyService adaptive = new AdaptiveTeknonymyService(
+                new ParallelTeknonymyService(), 1, Integer.MAX_VALUE, Long.MAX_VALUE);
+        CountingTeknonymyService.TraversalCounter counter = new CountingTeknonymyService.TraversalCounter();
+        adaptive.getTeknonymy(TeknonymyServiceTest.lineTreeGenerator(100_000), counter);
+
+        assertEquals(1, adaptive.getFallbacks());
+        assertEquals(100_000 + 1, counter.personsVisited());
+        assertEquals(100_000, counter.maxDepth());
+        assertEquals(1, counter.maxFanOut());
+    }
+
+    @Test
+    public void JmxTest() throws Exception {
+        JmxTeknonymyMetrics metrics = new JmxTeknonymyMetrics();
+        metrics.record(1500, false);
+        metrics.record(10, true);
+
+        ObjectName name = metrics.register("test");
+        try {
+            assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls"));
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Failures"));
+            long[] histogram = (long[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "LatencyHistogram");
+            assertEquals(1, histogram[3]); // 8 <= 10 < 16
+            assertEquals(1, histogram[10]); // 1024 <= 1500 < 2048
+        } finally {
+            JmxTeknonymyMetrics.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class LevelParallelTeknonymyServiceTest {
+
+    // More workers than this machine may have, so that generations are actually split
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        TeknonymyService sequential = new TeknonymyService();
+        for (int minChunkSize : new int[]{1, 7, LevelParallelTeknonymyService.DEFAULT_MIN_CHUNK_SIZE}) {
+            LevelParallelTeknonymyService service = new LevelParallelTeknonymyService(POOL, minChunkSize);
+            for (int seed = 0; seed < 20; seed++) { // The same instance is reused for every tree
+                Person person = TeknonymyServiceTest.randomTreeGenerator(5000, seed);
+                assertEquals(sequential.getTeknonymy_rec(person), service.getTeknonymy(person));
+            }
+        }
+    }
+
+    @Test
+    public void WideTreeTest() {
+        Person person = TeknonymyServiceTest.completeTreeGenerator(15, 5);
+        assertEquals(new TeknonymyService().getTeknonymy_rec(person),
+                new LevelParallelTeknonymyService(POOL, 64).getTeknonymy(person));
+    }
+
+    @Test
+    public void AsyncRunsOnPoolTest() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // The only worker of 'pool' is busy, so nothing runs until it is released
+            CompletableFuture<String> future = new LevelParallelTeknonymyService(pool, 1)
+                    .getTeknonymyAsync(TeknonymyServiceTest.getPerson1());
+            Thread.sleep(100);
+            assertFalse(future.isDone());
+
+            release.countDown();
+            assertEquals("great-grandfather of Charles", future.orTimeout(10, TimeUnit.SECONDS).join());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthTest() {
+        // Every grandchild is born at the same time, so the first one of the generation must be chosen
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person[] parents = new Person[100];
+        for (int p = 0; p < parents.length; p++) {
+            Person[] children = new Person[p % 3];
+            for (int c = 0; c < children.length; c++)
+                children[c] = new Person("Grandchild" + p + "-" + c, 'F', null, date);
+            parents[p] = new Person("Parent" + p, 'M', children.length == 0 ? null : children, date.minusYears(30));
+        }
+        Person root = new Person("Root", 'F', parents, date.minusYears(60));
+
+        assertEquals("grandmother of Grandchild1-0", new LevelParallelTeknonymyService(POOL, 1).getTeknonymy(root));
+        assertEquals(new TeknonymyService().getTeknonymy_rec(root),
+                new LevelParallelTeknonymyService(POOL, 1).getTeknonymy(root));
+    }
+}
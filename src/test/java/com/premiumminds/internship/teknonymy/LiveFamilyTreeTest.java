@@ -0,0 +1,195 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class LiveFamilyTreeTest {
+
+    @Test
+    public void AddChildTest() {
+        Person root = TeknonymyServiceTest.getPerson1();
+        Person janice = root.children()[1];
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+
+        assertEquals("great-grandfather of Charles", tree.getTeknonymy(root));
+        assertEquals("", tree.getTeknonymy(janice));
+
+        // Older than Charles, on the same generation
+        Person kate = new Person("Kate", 'F', null, LocalDateTime.of(2001, 1, 1, 0, 0));
+        Person ian = new Person("Ian", 'M', new Person[]{kate}, LocalDateTime.of(1980, 1, 1, 0, 0));
+        tree.addChild(janice, ian);
+
+        assertEquals(15, tree.size());
+        assertEquals("grandmother of Kate", tree.getTeknonymy(janice));
+        assertEquals("great-grandfather of Kate", tree.getTeknonymy(root));
+
+        // One generation deeper
+        Person leo = new Person("Leo", 'M', null, LocalDateTime.of(2030, 1, 1, 0, 0));
+        tree.addChild(kate, leo);
+
+        assertEquals("great-great-grandfather of Leo", tree.getTeknonymy(root));
+        assertEquals(4, tree.getGenerations(root));
+    }
+
+    @Test
+    public void InvalidChildTest() {
+        Person root = TeknonymyServiceTest.getPerson2();
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+        Person stranger = new Person("Stranger", 'M', null, LocalDateTime.of(2000, 1, 1, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> tree.addChild(root, root.children()[0]));
+        assertThrows(IllegalArgumentException.class, () -> tree.addChild(stranger, stranger));
+        assertThrows(IllegalArgumentException.class, () -> tree.getTeknonymy(stranger));
+
+        // A failed insertion leaves the tree as it was
+        Person family = new Person("Family", 'F', new Person[]{root.children()[0]}, LocalDateTime.of(1990, 1, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> tree.addChild(root, family));
+        assertEquals(6, tree.size());
+        assertThrows(IllegalArgumentException.class, () -> tree.getTeknonymy(family));
+    }
+
+    @Test
+    public void AsyncTest() {
+        Person root = TeknonymyServiceTest.getPerson1();
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+        Person stranger = new Person("Stranger", 'M', null, LocalDateTime.of(2000, 1, 1, 0, 0));
+
+        // Computed by the caller, so it cannot race a later 'addChild'
+        CompletableFuture<String> future = tree.getTeknonymyAsync(root);
+        assertTrue(future.isDone());
+        assertEquals("great-grandfather of Charles", future.join());
+        assertEquals(List.of("great-grandfather of Charles", ""), tree.getTeknonymies(List.of(root, root.children()[1])));
+
+        CompletableFuture<String> failed = tree.getTeknonymyAsync(stranger);
+        assertTrue(failed.isCompletedExceptionally());
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void SameDateOfBirthTest() {
+        // The first branch wins, even if its descendant is added last
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person a = new Person("A", 'F', null, date.minusYears(30));
+        Person b = new Person("B", 'M', null, date.minusYears(30));
+        Person root = new Person("Root", 'M', new Person[]{a, b}, date.minusYears(60));
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+
+        tree.addChild(b, new Person("B1", 'M', null, date));
+        assertEquals("grandfather of B1", tree.getTeknonymy(root));
+        tree.addChild(a, new Person("A1", 'F', null, date));
+        assertEquals("grandfather of A1", tree.getTeknonymy(root));
+        tree.addChild(b, new Person("B2", 'F', null, date));
+        assertEquals("grandfather of A1", tree.getTeknonymy(root));
+        assertEquals(new TeknonymyService().getTeknonymy_rec(tree.toPerson()), tree.getTeknonymy(root));
+    }
+
+    @Test
+    public void AddedDescendantsQueriesTest() {
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person kid = new Person("Kid", 'M', null, date.minusYears(30));
+        Person root = new Person("Root", 'F', new Person[]{kid}, date.minusYears(60));
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+
+        // 'kid.children()' is still null: only the links of the tree know about the grandchild
+        Person grandkid = new Person("Grandkid", 'F', null, date);
+        tree.addChild(kid, grandkid);
+
+        assertEquals("grandmother of Grandkid", tree.getTeknonymy(root));
+        assertEquals(List.of(grandkid, kid), tree.getOldestFarthestDescendants(root, 5));
+        assertEquals(List.of(grandkid), tree.getOldestFarthestDescendants(root, 1));
+        assertSame(kid, tree.getOldestDescendantAtGeneration(root, 1));
+        assertSame(grandkid, tree.getOldestDescendantAtGeneration(root, 2));
+        assertNull(tree.getOldestDescendantAtGeneration(root, 3));
+        assertThrows(IllegalArgumentException.class, () -> tree.getOldestFarthestDescendants(grandkid, -1));
+    }
+
+    @Test
+    public void RandomInsertionsQueriesMatchCopyTest() {
+        TeknonymyService service = new TeknonymyService();
+        for (int seed = 0; seed < 3; seed++) {
+            Random random = new Random(seed);
+            Person root = TeknonymyServiceTest.randomTreeGenerator(200, seed);
+            LiveFamilyTree tree = new LiveFamilyTree(root);
+
+            List<Person> persons = new ArrayList<>(service.getAllTeknonymies(root).keySet());
+            for (int i = 0; i < 500; i++) {
+                Person child = new Person("New" + i, 'F', null,
+                        LocalDateTime.of(900 + random.nextInt(3000), 1, 1, 0, 0));
+                tree.addChild(persons.get(random.nextInt(persons.size())), child);
+                persons.add(child);
+            }
+
+            // Same queries on an up-to-date copy, through 'children()'
+            Map<String, Person> copies = new HashMap<>();
+            service.forEachTeknonymy(tree.toPerson(), (person, teknonymy) -> copies.put(person.name(), person));
+            for (Person person : List.of(root, persons.get(random.nextInt(persons.size())))) {
+                Person copy = copies.get(person.name());
+                for (int k : new int[]{1, 5, 50})
+                    assertEquals(names(service.getOldestFarthestDescendants(copy, k)),
+                            names(tree.getOldestFarthestDescendants(person, k)));
+                for (int g = 1; g <= tree.getGenerations(person) + 1; g++) {
+                    Person expected = service.getOldestDescendantAtGeneration(copy, g);
+                    Person actual = tree.getOldestDescendantAtGeneration(person, g);
+                    assertEquals(expected == null ? null : expected.name(), actual == null ? null : actual.name());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void RandomInsertionsMatchRecursiveTest() {
+        TeknonymyService service = new TeknonymyService();
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            Person root = TeknonymyServiceTest.randomTreeGenerator(200, seed);
+            LiveFamilyTree tree = new LiveFamilyTree(root);
+
+            List<Person> persons = new ArrayList<>(service.getAllTeknonymies(root).keySet());
+            for (int i = 0; i < 2000; i++) {
+                Person parent = persons.get(random.nextInt(persons.size()));
+                // Half of the children are born in one of a few years, older than everyone else, so that there are
+                // often ties on who is the oldest
+                LocalDateTime dateOfBirth = random.nextBoolean()
+                        ? LocalDateTime.of(900 + random.nextInt(3), 1, 1, 0, 0)
+                        : LocalDateTime.of(3000, 1, 1, 0, 0).minusMinutes(random.nextInt(1_000_000) * 2000L + i);
+                Person child = new Person("New" + i, random.nextBoolean() ? 'M' : 'F', null, dateOfBirth);
+                tree.addChild(parent, child);
+                persons.add(child);
+
+                if (i % 100 == 99)
+                    assertSameAsRecursive(service, tree, persons);
+            }
+        }
+    }
+
+    private static List<String> names(List<Person> persons) {
+        return persons.stream().map(Person::name).toList();
+    }
+
+    private static void assertSameAsRecursive(TeknonymyService service, LiveFamilyTree tree, List<Person> persons) {
+        Map<String, String> expected = new HashMap<>();
+        service.forEachTeknonymy(tree.toPerson(), (person, teknonymy) -> expected.put(person.name(), teknonymy));
+
+        assertEquals(persons.size(), tree.size());
+        for (Person person : persons)
+            assertEquals(expected.get(person.name()), tree.getTeknonymy(person));
+    }
+}
@@ -0,0 +1,107 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class ParallelTeknonymyServiceTest {
+
+    // More workers than this machine may have, so that tasks are actually stolen
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void CompleteTreeTest() {
+        Person person = TeknonymyServiceTest.completeTreeGenerator(3, 10);
+        assertEquals(new TeknonymyService().getTeknonymy_rec(person),
+                new ParallelTeknonymyService(POOL).getTeknonymy(person));
+    }
+
+    @Test
+    public void AsyncRunsOnPoolTest() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // The only worker of 'pool' is busy, so nothing runs until it is released
+            CompletableFuture<String> future = new ParallelTeknonymyService(pool, 2)
+                    .getTeknonymyAsync(TeknonymyServiceTest.getPerson1());
+            Thread.sleep(100);
+            assertFalse(future.isDone());
+
+            release.countDown();
+            assertEquals("great-grandfather of Charles", future.orTimeout(10, TimeUnit.SECONDS).join());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        TeknonymyService sequential = new TeknonymyService();
+        for (int maxForkDepth = 0; maxForkDepth <= 6; maxForkDepth += 2) {
+            ParallelTeknonymyService parallel = new ParallelTeknonymyService(POOL, maxForkDepth);
+            for (int seed = 0; seed < 20; seed++) {
+                Person person = TeknonymyServiceTest.randomTreeGenerator(5000, seed);
+                assertEquals(sequential.getTeknonymy_rec(person), parallel.getTeknonymy(person));
+            }
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthMatchRecursiveTest() {
+        TeknonymyService sequential = new TeknonymyService();
+        for (int maxForkDepth = 1; maxForkDepth <= 6; maxForkDepth++) {
+            ParallelTeknonymyService parallel = new ParallelTeknonymyService(POOL, maxForkDepth);
+            for (int seed = 0; seed < 20; seed++) {
+                Person person = TeknonymyServiceTest.randomTiedTreeGenerator(5000, seed, 1 + seed % 3);
+                assertEquals(sequential.getTeknonymy_rec(person), parallel.getTeknonymy(person));
+            }
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthAcrossForkCutoffTest() {
+        // Every great-grandchild is born at the same time, and only the last branches have any. Whatever generation
+        // the forks stop at, the candidates of forked and sequential subtrees are merged, and the first one must win.
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person[] children = new Person[8];
+        for (int c = 0; c < children.length; c++) {
+            Person[] grandchildren = new Person[8];
+            for (int g = 0; g < grandchildren.length; g++) {
+                Person[] greatGrandchildren = c < 5 ? null : new Person[]{
+                        new Person("Person" + c + "-" + g + "-0", 'F', null, date),
+                        new Person("Person" + c + "-" + g + "-1", 'M', null, date)};
+                grandchildren[g] = new Person("Person" + c + "-" + g, 'M', greatGrandchildren, date.minusYears(30));
+            }
+            children[c] = new Person("Person" + c, 'F', grandchildren, date.minusYears(60));
+        }
+        Person root = new Person("Root", 'M', children, date.minusYears(90));
+
+        for (int maxForkDepth = 0; maxForkDepth <= 4; maxForkDepth++)
+            assertEquals("great-grandfather of Person5-0-0",
+                    new ParallelTeknonymyService(POOL, maxForkDepth).getTeknonymy(root));
+    }
+}
@@ -0,0 +1,150 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class ShardedTeknonymyServiceTest {
+
+    // Starting worker JVMs is slow, so they are shared by every test
+    private static ShardedTeknonymyService service;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startWorkers() throws IOException {
+        service = new ShardedTeknonymyService(3);
+    }
+
+    @AfterClass
+    public static void stopWorkers() {
+        service.close();
+    }
+
+    @Test
+    public void RandomTreesMatchCompactTest() throws IOException {
+        CompactTeknonymyService compact = new CompactTeknonymyService();
+        for (int seed = 0; seed < 5; seed++) {
+            Path file = folder.newFile().toPath();
+            FamilyTreeFile.write(TeknonymyServiceTest.randomTreeGenerator(20_000, seed), file);
+            ICompactFamilyTree tree = FamilyTreeFile.open(file);
+
+            for (int person = 0; person < tree.size(); person += 997)
+                assertEquals(compact.getTeknonymy(tree, person), service.getTeknonymy(file, person));
+        }
+    }
+
+    @Test
+    public void CompleteTreeTest() throws IOException {
+        Person root = TeknonymyServiceTest.completeTreeGenerator(5, 8);
+        assertEquals(new TeknonymyService().getTeknonymy_rec(root), service.getTeknonymy(root));
+    }
+
+    @Test
+    public void SameDateOfBirthMatchRecursiveTest() throws IOException {
+        for (int seed = 0; seed < 5; seed++) {
+            Person root = TeknonymyServiceTest.randomTiedTreeGenerator(20_000, seed, 1 + seed % 3);
+            Map<String, String> expected = new HashMap<>();
+            new TeknonymyService().forEachTeknonymy(root, (person, teknonymy) -> expected.put(person.name(), teknonymy));
+
+            Path file = folder.newFile().toPath();
+            FamilyTreeFile.write(root, file);
+            ICompactFamilyTree tree = FamilyTreeFile.open(file);
+
+            for (int person = 0; person < tree.size(); person += 997)
+                assertEquals(expected.get(tree.name(person)), service.getTeknonymy(file, person));
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthAcrossShardsTest() {
+        // The coordinator stops cutting halfway through the grandchildren, so the first branch is merged from many
+        // shards by the coordinator, and the second one is a single shard, merged by a worker
+        int grandchildren = ShardedTeknonymyService.SHARDS_PER_WORKER * 3 + 6;
+
+        // Every great-grandchild is born at the same time
+        assertEquals("great-grandfather of Person0-0-0", service.getTeknonymy(tiedTree(grandchildren, 0)));
+        // Only the last grandchildren of the first branch have children
+        assertEquals("great-grandfather of Person0-20-0", service.getTeknonymy(tiedTree(grandchildren, 20)));
+        // Only the second branch has great-grandchildren
+        assertEquals("great-grandfather of Person1-3-0",
+                service.getTeknonymy(tiedTree(grandchildren, grandchildren + 3)));
+    }
+
+    /**
+     * Root with two children, each with 'grandchildren' children. From the 'firstParent'-th grandchild on, counting
+     * the grandchildren of both branches in order, every grandchild has two children, all born on the same date.
+     */
+    private static Person tiedTree(int grandchildren, int firstParent) {
+        LocalDateTime date = LocalDateTime.of(2000, 1, 1, 0, 0);
+        Person[] children = new Person[2];
+        for (int c = 0; c < children.length; c++) {
+            Person[] persons = new Person[grandchildren];
+            for (int g = 0; g < grandchildren; g++) {
+                String name = "Person" + c + "-" + g;
+                Person[] greatGrandchildren = c * grandchildren + g < firstParent ? null : new Person[]{
+                        new Person(name + "-0", 'F', null, date), new Person(name + "-1", 'M', null, date)};
+                persons[g] = new Person(name, 'M', greatGrandchildren, date.minusYears(30));
+            }
+            children[c] = new Person("Person" + c, 'F', persons, date.minusYears(60));
+        }
+        return new Person("Root", 'M', children, date.minusYears(90));
+    }
+
+    @Test
+    public void InvalidFileTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.writeString(file, "not a family tree");
+
+        assertThrows(IOException.class, () -> service.getTeknonymy(file, 0));
+    }
+
+    @Test
+    public void WorkerProtocolTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        FamilyTreeFile.write(TeknonymyServiceTest.getPerson2(), file);
+
+        ByteArrayOutputStream commands = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(commands);
+        out.writeByte(ShardWorker.SUMMARIZE); // Nothing open yet
+        out.writeInt(0);
+        out.writeByte(ShardWorker.OPEN);
+        out.writeUTF(file.toString());
+        out.writeByte(ShardWorker.SUMMARIZE);
+        out.writeInt(1);
+        out.writeByte(ShardWorker.QUIT);
+
+        ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        ShardWorker.serve(new DataInputStream(new ByteArrayInputStream(commands.toByteArray())),
+                new DataOutputStream(replies));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(replies.toByteArray()));
+        assertEquals(ShardWorker.ERROR, in.readByte());
+        in.readUTF();
+        assertEquals(ShardWorker.OK, in.readByte());
+        assertEquals(ShardWorker.OK, in.readByte());
+        assertEquals(5, in.readInt()); // Stacey
+        assertEquals(4, in.readInt()); // Great-grandchild of Gregory
+        assertEquals(-1, in.read());
+    }
+}
@@ -0,0 +1,23 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class StackTeknonymyServiceTest {
+
+    @Test
+    public void TallLineTreeTest() {
+        // Far too tall for the recursive version
+        int generations = 100_000;
+        Person person = TeknonymyServiceTest.lineTreeGenerator(generations);
+
+        String result = new StackTeknonymyService().getTeknonymy(person);
+        String expected = "great-".repeat(generations - 2) + "grandfather of Person" + generations;
+
+        assertEquals(expected, result);
+    }
+}
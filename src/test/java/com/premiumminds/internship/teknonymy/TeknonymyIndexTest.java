@@ -0,0 +1,69 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class TeknonymyIndexTest {
+
+    @Test
+    public void ExampleTreeTest() {
+        Person root = TeknonymyServiceTest.getPerson1();
+        TeknonymyIndex index = new TeknonymyIndex(root);
+
+        assertEquals(13, index.size());
+        assertEquals("great-grandfather of Charles", index.getTeknonymy(root));
+        assertEquals(3, index.getGenerations(root));
+        assertEquals("Charles", index.getOldestFarthestDescendant(root).name());
+
+        Person mark = root.children()[2];
+        assertEquals("grandfather of Charles", index.getTeknonymy(mark));
+        assertEquals("", index.getTeknonymy(root.children()[1])); // Janice
+    }
+
+    @Test
+    public void GenerationsAtLeastTest() {
+        TeknonymyIndex index = new TeknonymyIndex(TeknonymyServiceTest.getPerson1());
+
+        assertEquals(Set.of("John"), names(index.getPersonsWithGenerationsAtLeast(3)));
+        assertEquals(Set.of("John", "Jack", "Mark"), names(index.getPersonsWithGenerationsAtLeast(2)));
+        assertEquals(Set.of("John", "Jack", "Mark", "Amy", "Carol"), names(index.getPersonsWithGenerationsAtLeast(1)));
+        assertEquals(13, index.getPersonsWithGenerationsAtLeast(0).size());
+        assertEquals(0, index.getPersonsWithGenerationsAtLeast(4).size());
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        TeknonymyService service = new TeknonymyService();
+        for (int seed = 0; seed < 10; seed++) {
+            Person root = TeknonymyServiceTest.randomTreeGenerator(2000, seed);
+            TeknonymyIndex index = new TeknonymyIndex(root);
+            Map<Person, String> expected = service.getAllTeknonymies(root);
+
+            assertEquals(expected.size(), index.size());
+            expected.forEach((person, teknonymy) -> assertEquals(teknonymy, index.getTeknonymy(person)));
+        }
+    }
+
+    @Test
+    public void UnknownPersonTest() {
+        TeknonymyIndex index = new TeknonymyIndex(TeknonymyServiceTest.getPerson2());
+        Person stranger = new Person("Stranger", 'M', null, LocalDateTime.of(2000, 1, 1, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> index.getTeknonymy(stranger));
+    }
+
+    private static Set<String> names(List<Person> persons) {
+        return persons.stream().map(Person::name).collect(Collectors.toSet());
+    }
+}
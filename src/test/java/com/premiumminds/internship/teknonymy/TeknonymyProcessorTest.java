@@ -0,0 +1,247 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class TeknonymyProcessorTest {
+
+    @Test
+    public void AnswersInOrderTest() throws InterruptedException {
+        Person person1 = TeknonymyServiceTest.getPerson1();
+        Person person2 = TeknonymyServiceTest.getPerson2();
+        AtomicInteger calls = new AtomicInteger();
+        TeknonymyProcessor processor = new TeknonymyProcessor(person -> {
+            calls.incrementAndGet();
+            return new TeknonymyService().getTeknonymy(person);
+        }, 4, TimeUnit.MILLISECONDS.toNanos(1), 16, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+
+        try (SubmissionPublisher<Person> queries = new SubmissionPublisher<>()) {
+            queries.subscribe(processor);
+            for (Person person : List.of(person1, person2, person1, person1, person2))
+                queries.submit(person);
+        }
+
+        List<String> expected = List.of("great-grandfather of Charles", "great-great-great-grandmother of Stacey",
+                "great-grandfather of Charles", "great-grandfather of Charles",
+                "great-great-great-grandmother of Stacey");
+        for (String teknonymy : expected)
+            assertEquals(teknonymy, answers.next().teknonymy());
+        answers.awaitCompletion();
+        assertEquals(2, calls.get());
+        assertEquals(3, processor.getHits());
+        assertEquals(2, processor.getMisses());
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() throws InterruptedException {
+        List<Person> persons = new ArrayList<>();
+        for (int seed = 0; seed < 100; seed++)
+            persons.add(TeknonymyServiceTest.randomTreeGenerator(seed * 10 + 1, seed));
+
+        TeknonymyProcessor processor = new TeknonymyProcessor(new StackTeknonymyService(), 8,
+                TimeUnit.MILLISECONDS.toNanos(1), 32, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+        try (SubmissionPublisher<Person> queries = new SubmissionPublisher<>()) {
+            queries.subscribe(processor);
+            for (int i = 0; i < 1000; i++)
+                queries.submit(persons.get((i * 37) % persons.size()));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Person person = persons.get((i * 37) % persons.size());
+            TeknonymyProcessor.Answer answer = answers.next();
+            assertTrue(answer.person() == person);
+            assertEquals(new TeknonymyService().getTeknonymy_rec(person), answer.teknonymy());
+        }
+        answers.awaitCompletion();
+        assertTrue(processor.getBatches() >= 1000 / 8);
+    }
+
+    @Test
+    public void InvalidationTest() throws InterruptedException {
+        Person root = new Person("Ana", 'F', null, LocalDateTime.of(1950, 1, 1, 0, 0));
+        LiveFamilyTree tree = new LiveFamilyTree(root);
+        TeknonymyProcessor processor = new TeknonymyProcessor(tree, 4, 0, 16, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+
+        try (SubmissionPublisher<Person> queries = new SubmissionPublisher<>()) {
+            queries.subscribe(processor);
+            queries.submit(root);
+            assertEquals("", answers.next().teknonymy());
+
+            tree.addChild(root, new Person("Rui", 'M', null, LocalDateTime.of(1980, 1, 1, 0, 0)));
+            queries.submit(root);
+            assertEquals("", answers.next().teknonymy()); // Still cached
+
+            processor.invalidate(root);
+            queries.submit(root);
+            assertEquals("mother of Rui", answers.next().teknonymy());
+        }
+        answers.awaitCompletion();
+        assertEquals(2, processor.getMisses());
+    }
+
+    @Test
+    public void SlowSubscriberTest() throws InterruptedException {
+        Person person = TeknonymyServiceTest.getPerson2();
+        AtomicInteger calls = new AtomicInteger();
+        TeknonymyProcessor processor = new TeknonymyProcessor(p -> {
+            calls.incrementAndGet();
+            return "";
+        }, 4, 0, 0, 4); // No cache
+        Answers answers = new Answers(processor, 1);
+
+        SubmissionPublisher<Person> queries = new SubmissionPublisher<>(Runnable::run, 4);
+        queries.subscribe(processor);
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 1000; i++)
+                queries.submit(person);
+            queries.close();
+        });
+
+        answers.next();
+        Thread.sleep(200);
+        // Only the answers the subscriber has room for, plus a batch, are computed
+        long processed = processor.getHits() + processor.getMisses();
+        assertTrue("Processed " + processed, processed <= 16);
+        assertTrue(!producer.isDone());
+
+        answers.request(Long.MAX_VALUE);
+        for (int i = 1; i < 1000; i++)
+            answers.next();
+        answers.awaitCompletion();
+        assertEquals(1000, processor.getHits() + processor.getMisses());
+        // Once per batch, since every query is the same person. Batches may be flushed before they are full.
+        assertTrue(calls.get() >= 1000 / 4);
+    }
+
+    @Test
+    public void EngineFailureTest() throws InterruptedException {
+        TeknonymyProcessor processor = new TeknonymyProcessor(person -> {
+            throw new IllegalStateException("broken");
+        }, 4, 0, 16, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+
+        SubmissionPublisher<Person> queries = new SubmissionPublisher<>();
+        queries.subscribe(processor);
+        queries.submit(TeknonymyServiceTest.getPerson1());
+
+        Throwable error = answers.awaitError();
+        assertNotNull(error);
+        assertEquals("broken", error.getMessage());
+        queries.close();
+    }
+
+    @Test
+    public void CloseTest() throws InterruptedException {
+        Person person = TeknonymyServiceTest.getPerson1();
+        TeknonymyProcessor processor = new TeknonymyProcessor(new StackTeknonymyService(), 4, 0, 16, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+
+        SubmissionPublisher<Person> queries = new SubmissionPublisher<>();
+        queries.subscribe(processor);
+        queries.submit(person);
+        assertEquals("great-grandfather of Charles", answers.next().teknonymy());
+
+        processor.close(); // Before the upstream completes
+        answers.awaitCompletion();
+        assertTrue(processor.isClosed());
+        awaitNoSubscribers(queries); // The upstream was cancelled
+
+        queries.submit(person); // Ignored
+        queries.close();
+        Thread.sleep(50);
+        assertTrue(answers.received.isEmpty());
+    }
+
+    @Test
+    public void CloseExceptionallyTest() throws InterruptedException {
+        TeknonymyProcessor processor = new TeknonymyProcessor(new StackTeknonymyService(), 4, 0, 16, 16);
+        Answers answers = new Answers(processor, Long.MAX_VALUE);
+        SubmissionPublisher<Person> queries = new SubmissionPublisher<>();
+        queries.subscribe(processor);
+
+        processor.closeExceptionally(new IllegalStateException("stopped"));
+        assertEquals("stopped", answers.awaitError().getMessage());
+        awaitNoSubscribers(queries);
+        queries.close();
+    }
+
+    private static void awaitNoSubscribers(SubmissionPublisher<Person> publisher) throws InterruptedException {
+        for (int i = 0; i < 1000 && publisher.getNumberOfSubscribers() > 0; i++)
+            Thread.sleep(10);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    /**
+     * Subscriber that keeps the answers in a queue.
+     */
+    private static final class Answers implements Flow.Subscriber<TeknonymyProcessor.Answer> {
+        private final BlockingQueue<TeknonymyProcessor.Answer> received = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Throwable> end = new CompletableFuture<>(); // null if completed normally
+        private final CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+        private final long initialRequest;
+
+        private Answers(TeknonymyProcessor processor, long initialRequest) {
+            this.initialRequest = initialRequest;
+            processor.subscribe(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription.complete(subscription);
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(TeknonymyProcessor.Answer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            end.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            end.complete(null);
+        }
+
+        private void request(long n) {
+            subscription.join().request(n);
+        }
+
+        private TeknonymyProcessor.Answer next() throws InterruptedException {
+            TeknonymyProcessor.Answer answer = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull("No answer", answer);
+            return answer;
+        }
+
+        private void awaitCompletion() {
+            assertEquals(null, end.orTimeout(10, TimeUnit.SECONDS).join());
+        }
+
+        private Throwable awaitError() {
+            return end.orTimeout(10, TimeUnit.SECONDS).join();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+@RunWith(JUnit4.class)
+public class TeknonymyRendererTest {
+
+    private static final String[] PARENTHOODS = {"father", "mother", "N/A", "parent"};
+    private static final String[] NAMES = {"Jerry", "", "João", "Zoë 😀", "\uD800broken"};
+
+    @Test
+    public void ExamplesTest() {
+        assertEquals("", TeknonymyRenderer.render("mother", "Jerry", 0));
+        assertEquals("mother of Jerry", TeknonymyRenderer.render("mother", "Jerry", 1));
+        assertEquals("grandfather of Jerry", TeknonymyRenderer.render("father", "Jerry", 2));
+        assertEquals("great-great-grandmother of Jerry", TeknonymyRenderer.render("mother", "Jerry", 4));
+    }
+
+    @Test
+    public void MatchesInsertionTest() throws IOException {
+        for (String parenthood : PARENTHOODS)
+            for (String name : NAMES)
+                for (int depth = 0; depth <= 3 * TeknonymyRenderer.CACHED_DEPTHS; depth++) {
+                    String expected = insertionTeknonymy(parenthood, name, depth);
+
+                    assertEquals(expected, TeknonymyRenderer.render(parenthood, name, depth));
+                    assertEquals("x" + expected, TeknonymyRenderer.appendTeknonymy(
+                            new StringBuilder("x"), parenthood, name, depth).toString());
+                    assertEquals(expected, TeknonymyRenderer.appendTeknonymy(
+                            new StringWriter(), parenthood, name, depth).toString());
+
+                    ByteBuffer buffer = TeknonymyRenderer.appendTeknonymy(
+                            ByteBuffer.allocate(2000), parenthood, name, depth);
+                    assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, buffer.position());
+                    assertEquals(Arrays.toString(expected.getBytes(StandardCharsets.UTF_8)),
+                            Arrays.toString(Arrays.copyOf(buffer.array(), buffer.position())));
+                }
+    }
+
+    @Test
+    public void NullNameTest() throws IOException {
+        // As when the Teknonymy was built by concatenation, a null name is rendered as "null"
+        assertEquals("father of null", TeknonymyRenderer.render("father", null, 1));
+        assertEquals("great-grandmother of null", TeknonymyRenderer.render("mother", null, 3));
+        assertEquals("parent of null", TeknonymyRenderer.render("parent", null, 1));
+        assertEquals("father of null", TeknonymyRenderer.appendTeknonymy(
+                new StringWriter(), "father", null, 1).toString());
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        TeknonymyRenderer.appendTeknonymy(buffer, "mother", null, 2);
+        assertEquals("grandmother of null",
+                new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+
+        Person person = new Person("John", 'M', new Person[]{
+                new Person(null, 'F', null, LocalDateTime.of(1046, 1, 1, 0, 0))},
+                LocalDateTime.of(1000, 1, 1, 0, 0));
+        assertEquals("father of null", new TeknonymyService().getTeknonymy(person));
+    }
+
+    @Test
+    public void BufferOverflowTest() {
+        String expected = "great-grandmother of Zoë";
+        int length = expected.getBytes(StandardCharsets.UTF_8).length;
+
+        ByteBuffer full = ByteBuffer.allocate(length);
+        TeknonymyRenderer.appendTeknonymy(full, "mother", "Zoë", 3);
+        assertEquals(expected, new String(full.array(), StandardCharsets.UTF_8));
+
+        ByteBuffer small = ByteBuffer.allocate(length - 1);
+        assertThrows(BufferOverflowException.class, () -> TeknonymyRenderer.appendTeknonymy(small, "mother", "Zoë", 3));
+        assertEquals(0, small.position());
+    }
+
+    /**
+     * Original implementation of 'buildTeknonymy'.
+     */
+    private static String insertionTeknonymy(String parenthood, String descendantName, int depth) {
+        StringBuilder degree = new StringBuilder();
+
+        if (depth >= 1)
+            degree.insert(0, parenthood);
+
+        if (depth >= 2)
+            degree.insert(0, "grand");
+
+        for (int i = 3; i <= depth; i++)
+            degree.insert(0, "great-");
+
+        return depth == 0 ? "" : degree + " of " + descendantName;
+    }
+}
@@ -0,0 +1,115 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * What every {@link ITeknonymyService} must agree on, run over each implementation. The test class of an engine only
+ * covers what is specific to it, e.g. cutoffs, memo eviction, shard I/O or backpressure.
+ */
+@RunWith(Parameterized.class)
+public class TeknonymyServiceConformanceTest {
+
+    // More workers than this machine may have, so that tasks are actually stolen
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static ConcurrentTeknonymyService concurrent;
+    // Starting worker JVMs is slow, so they are shared by every test
+    private static ShardedTeknonymyService sharded;
+
+    @Parameterized.Parameter(0)
+    public String name;
+
+    /**
+     * Engine for the tree of the given root. Engines that do not depend on the tree are reused between trees.
+     */
+    @Parameterized.Parameter(1)
+    public Function<Person, ITeknonymyService> engine;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> engines() throws IOException {
+        TeknonymyService recursive = new TeknonymyService();
+        StackTeknonymyService stack = new StackTeknonymyService();
+        ParallelTeknonymyService parallel = new ParallelTeknonymyService(POOL);
+        CompactTeknonymyService compact = new CompactTeknonymyService();
+        LevelParallelTeknonymyService level = new LevelParallelTeknonymyService(POOL, 1);
+        DagTeknonymyService dag = new DagTeknonymyService();
+        // Low thresholds, so that every engine it may choose is used
+        AdaptiveTeknonymyService adaptive = new AdaptiveTeknonymyService(
+                new ParallelTeknonymyService(POOL), 16, 1000, 1000);
+        InstrumentedTeknonymyService instrumented =
+                new InstrumentedTeknonymyService(new StackTeknonymyService(), new JmxTeknonymyMetrics());
+        concurrent = new ConcurrentTeknonymyService();
+        sharded = new ShardedTeknonymyService(3);
+
+        return List.of(
+                engine("TeknonymyService", root -> recursive),
+                engine("StackTeknonymyService", root -> stack),
+                engine("ParallelTeknonymyService", root -> parallel),
+                engine("CompactTeknonymyService", root -> compact),
+                engine("LevelParallelTeknonymyService", root -> level),
+                engine("DagTeknonymyService", root -> dag),
+                engine("TeknonymyIndex", TeknonymyIndex::new),
+                engine("LiveFamilyTree", LiveFamilyTree::new),
+                engine("AdaptiveTeknonymyService", root -> adaptive),
+                engine("InstrumentedTeknonymyService", root -> instrumented),
+                engine("ConcurrentTeknonymyService", root -> concurrent),
+                engine("ShardedTeknonymyService", root -> sharded));
+    }
+
+    private static Object[] engine(String name, Function<Person, ITeknonymyService> engine) {
+        return new Object[]{name, engine};
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+        concurrent.close();
+        sharded.close();
+    }
+
+    @Test
+    public void PersonNoChildrenTest() {
+        Person person = new Person("John", 'M', null, LocalDateTime.of(1046, 1, 1, 0, 0));
+        assertEquals("", engine.apply(person).getTeknonymy(person));
+    }
+
+    @Test
+    public void ExampleTreesTest() {
+        Person person1 = TeknonymyServiceTest.getPerson1();
+        Person person2 = TeknonymyServiceTest.getPerson2();
+        Person person3 = TeknonymyServiceTest.getPerson3();
+
+        assertEquals("great-grandfather of Charles", engine.apply(person1).getTeknonymy(person1));
+        assertEquals("great-great-great-grandmother of Stacey", engine.apply(person2).getTeknonymy(person2));
+        assertEquals("great-great-grandfather of Person3", engine.apply(person3).getTeknonymy(person3));
+    }
+
+    @Test
+    public void RandomTreesMatchRecursiveTest() {
+        TeknonymyService recursive = new TeknonymyService();
+        for (int seed = 0; seed < 20; seed++) {
+            Person person = TeknonymyServiceTest.randomTreeGenerator(5000, seed);
+            assertEquals(recursive.getTeknonymy_rec(person), engine.apply(person).getTeknonymy(person));
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthMatchRecursiveTest() {
+        // Ties are broken by the order of the children, which engines must not change
+        TeknonymyService recursive = new TeknonymyService();
+        for (int seed = 0; seed < 20; seed++) {
+            Person person = TeknonymyServiceTest.randomTiedTreeGenerator(5000, seed, 1 + seed % 3);
+            assertEquals(recursive.getTeknonymy_rec(person), engine.apply(person).getTeknonymy(person));
+        }
+    }
+}
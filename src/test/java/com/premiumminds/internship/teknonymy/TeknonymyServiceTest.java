@@ -6,6 +6,12 @@ import org.junit.runners.JUnit4;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -80,13 +86,59 @@ public class TeknonymyServiceTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void AllTeknonymiesTest() {
+        Map<Person, String> result = new TeknonymyService().getAllTeknonymies(getPerson1());
+        Map<String, String> byName = new HashMap<>();
+        result.forEach((person, teknonymy) -> byName.put(person.name(), teknonymy));
+
+        assertEquals(13, result.size());
+        assertEquals("great-grandfather of Charles", byName.get("John"));
+        assertEquals("grandfather of Marisa", byName.get("Jack"));
+        assertEquals("mother of Marisa", byName.get("Amy"));
+        assertEquals("grandfather of Charles", byName.get("Mark"));
+        assertEquals("mother of Charles", byName.get("Carol"));
+        assertEquals("", byName.get("Janice"));
+        assertEquals("", byName.get("Lori"));
+    }
+
+    @Test
+    public void AllTeknonymiesMatchSingleTest() {
+        TeknonymyService service = new TeknonymyService();
+        for (int seed = 0; seed < 10; seed++) {
+            Person root = randomTreeGenerator(2000, seed);
+            Map<Person, String> result = service.getAllTeknonymies(root);
+
+            assertEquals(2000, result.size());
+            result.forEach((person, teknonymy) -> assertEquals(service.getTeknonymy(person), teknonymy));
+        }
+    }
+
+    @Test
+    public void AllTeknonymiesTallLineTreeTest() {
+        // Far too tall for the recursive version. Only some Teknonymies are kept, the others are long.
+        int generations = 20_000;
+        Map<String, String> byName = new HashMap<>();
+        int[] count = new int[1];
+        new TeknonymyService().forEachTeknonymy(lineTreeGenerator(generations), (person, teknonymy) -> {
+            count[0]++;
+            if (teknonymy.length() < 100 || person.name().equals("Person0"))
+                byName.put(person.name(), teknonymy);
+        });
+
+        assertEquals(generations + 1, count[0]);
+        assertEquals("great-".repeat(generations - 2) + "grandfather of Person" + generations, byName.get("Person0"));
+        assertEquals("father of Person" + generations, byName.get("Person" + (generations - 1)));
+        assertEquals("", byName.get("Person" + generations));
+    }
+
     // ===== AUX METHODS =====
     private static Person createPerson(String name, Character sex, int yearOfBirth, Person[] children) {
         return new Person(name, sex, children, LocalDateTime.of(yearOfBirth, Month.JANUARY, 1, 0, 0));
     }
 
     // = PERSON GETTERS =
-    private Person getPerson1() {
+    static Person getPerson1() {
         /* *
          * John
          * |                \      \
@@ -118,7 +170,7 @@ public class TeknonymyServiceTest {
         return john;
     }
 
-    private Person getPerson2() {
+    static Person getPerson2() {
         // kim -> gregory -> jerry -> gerald -> angela -> stacey
         Person stacey = createPerson("Stacey", 'F', 2005, null);
         Person angela = createPerson("Angela", 'F', 2004, new Person[]{stacey});
@@ -132,7 +184,7 @@ public class TeknonymyServiceTest {
         return kim;
     }
 
-    private Person getPerson3() {
+    static Person getPerson3() {
         /* *
          * Tree generated by ChatGPT.
          * Verified by me:
@@ -284,7 +336,7 @@ public class TeknonymyServiceTest {
      * @param height height of the tree. The height of a tree with 1 node (root) is 1.
      * @return root of the tree.
      */
-    private static Person completeTreeGenerator(int n, int height) {
+    static Person completeTreeGenerator(int n, int height) {
         return completeTreeGenerator_rec(0, n, height-1);
     }
 
@@ -305,4 +357,90 @@ public class TeknonymyServiceTest {
 
         return createPerson("Person" + num, height % 2 == 0 ? 'M' : 'F', num, children);
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a random family tree: every person is the child of a uniformly chosen, previously created person.
+     * Every person has a different year of birth, so there is never ambiguity on who is the oldest.
+     * @param size number of persons in the tree
+     * @param seed seed for the shape of the tree and the years of birth
+     * @return root of the tree.
+     */
+    static Person randomTreeGenerator(int size, long seed) {
+        Random random = new Random(seed);
+
+        List<Integer> yearsOfBirth = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            yearsOfBirth.add(1000 + i);
+        Collections.shuffle(yearsOfBirth, random);
+
+        int[] parent = new int[size];
+        List<List<Person>> children = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parent[i] = i == 0 ? -1 : random.nextInt(i);
+            children.add(new ArrayList<>());
+        }
+
+        // Children are always created after their parents, so they are built first
+        Person person = null;
+        for (int i = size - 1; i >= 0; i--) {
+            List<Person> personChildren = children.get(i);
+            Collections.reverse(personChildren);
+            person = createPerson("Person" + i, i % 2 == 0 ? 'M' : 'F', yearsOfBirth.get(i),
+                    personChildren.isEmpty() ? null : personChildren.toArray(new Person[0]));
+            if (parent[i] >= 0)
+                children.get(parent[i]).add(person);
+        }
+
+        return person;
+    }
+
+    /**
+     * Creates a random family tree, with the same shape as 'randomTreeGenerator', but every person of the same
+     * generation is born in one of only 'years' different years. Siblings and cousins are often born on the same date,
+     * so ties on who is the oldest are common, and must be broken by the order of the children (the first branch wins).
+     * @param size number of persons in the tree
+     * @param seed seed for the shape of the tree and the years of birth
+     * @param years number of different years of birth of each generation. With '1', a whole generation is born on the
+     *              same date.
+     * @return root of the tree.
+     */
+    static Person randomTiedTreeGenerator(int size, long seed, int years) {
+        Random random = new Random(seed);
+
+        int[] parent = new int[size];
+        int[] yearsOfBirth = new int[size];
+        List<List<Person>> children = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parent[i] = i == 0 ? -1 : random.nextInt(i);
+            // Each generation is born 100 years after the previous one, so it is never older than its parents
+            yearsOfBirth[i] = (i == 0 ? 1000 : yearsOfBirth[parent[i]] - yearsOfBirth[parent[i]] % 100 + 100)
+                    + random.nextInt(years);
+            children.add(new ArrayList<>());
+        }
+
+        Person person = null;
+        for (int i = size - 1; i >= 0; i--) {
+            List<Person> personChildren = children.get(i);
+            Collections.reverse(personChildren);
+            person = createPerson("Person" + i, i % 2 == 0 ? 'M' : 'F', yearsOfBirth[i],
+                    personChildren.isEmpty() ? null : personChildren.toArray(new Person[0]));
+            if (parent[i] >= 0)
+                children.get(parent[i]).add(person);
+        }
+
+        return person;
+    }
+
+    /**
+     * Creates a single lineage: every person has one child, down to 'Person' + 'generations'. Far too tall for the
+     * recursive versions when 'generations' is large.
+     * @param generations number of generations below the root
+     * @return root of the tree.
+     */
+    static Person lineTreeGenerator(int generations) {
+        Person person = new Person("Person" + generations, 'F', null, LocalDateTime.of(2000, 1, 1, 0, 0));
+        for (int i = generations - 1; i >= 0; i--)
+            person = new Person("Person" + i, 'M', new Person[]{person}, LocalDateTime.of(1000, 1, 1, 0, 0));
+        return person;
+    }
+}
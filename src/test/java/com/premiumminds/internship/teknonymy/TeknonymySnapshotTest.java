@@ -0,0 +1,252 @@
+package com.premiumminds.internship.teknonymy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class TeknonymySnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void ExampleTreeTest() throws IOException {
+        CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.getPerson1());
+        Path file = folder.newFile().toPath();
+        TeknonymySnapshot.write(tree, file, true);
+
+        TeknonymySnapshot.MappedSnapshot snapshot = open(file, tree, true);
+        assertEquals(13, snapshot.size());
+        assertTrue(snapshot.hasTeknonymies());
+        assertEquals("great-grandfather of Charles", snapshot.getTeknonymy(tree.root()));
+        assertEquals("grandfather of Marisa", snapshot.getTeknonymy(1)); // Jack
+        assertEquals("", snapshot.getTeknonymy(2)); // Janice
+        assertEquals(3, snapshot.getGenerations(tree.root()));
+        assertEquals("Charles", tree.name(snapshot.getOldestFarthestDescendant(tree.root())));
+    }
+
+    @Test
+    public void FailedWriteKeepsPreviousSnapshotTest() throws IOException {
+        CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.getPerson1());
+        Path file = folder.newFolder().toPath().resolve("tree.tksn");
+        TeknonymySnapshot.write(tree, file, true);
+
+        // Fails halfway, when the Teknonymies are written (after they were measured)
+        AtomicInteger names = new AtomicInteger();
+        ICompactFamilyTree failing = new ICompactFamilyTree() {
+            @Override
+            public int size() {
+                return tree.size();
+            }
+
+            @Override
+            public int firstChild(int person) {
+                return tree.firstChild(person);
+            }
+
+            @Override
+            public int childCount(int person) {
+                return tree.childCount(person);
+            }
+
+            @Override
+            public long birthEpochSecond(int person) {
+                return tree.birthEpochSecond(person);
+            }
+
+            @Override
+            public int birthNano(int person) {
+                return tree.birthNano(person);
+            }
+
+            @Override
+            public char sex(int person) {
+                return tree.sex(person);
+            }
+
+            @Override
+            public String name(int person) {
+                if (names.incrementAndGet() > tree.size() + 5)
+                    throw new IllegalStateException("Broken tree");
+                return tree.name(person);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> TeknonymySnapshot.write(failing, file, true));
+
+        assertEquals("great-grandfather of Charles", open(file, tree, true).getTeknonymy(tree.root()));
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList()); // No temporary file left behind
+        }
+
+        // Replaced by a successful write
+        CompactFamilyTree other = CompactFamilyTree.of(TeknonymyServiceTest.getPerson2());
+        TeknonymySnapshot.write(other, file, true);
+        assertEquals("great-great-great-grandmother of Stacey",
+                open(file, other, true).getTeknonymy(other.root()));
+    }
+
+    @Test
+    public void RandomTreesMatchCompactTest() throws IOException {
+        CompactTeknonymyService service = new CompactTeknonymyService();
+        for (int seed = 0; seed < 5; seed++) {
+            CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.randomTreeGenerator(5000, seed));
+            Path withTeknonymies = folder.newFile().toPath();
+            Path withoutTeknonymies = folder.newFile().toPath();
+            TeknonymySnapshot.write(tree, withTeknonymies, true);
+            TeknonymySnapshot.write(tree, withoutTeknonymies, false);
+
+            TeknonymySnapshot.MappedSnapshot full = open(withTeknonymies, tree, true);
+            TeknonymySnapshot.MappedSnapshot small =
+                    TeknonymySnapshot.open(withoutTeknonymies, TeknonymySnapshot.contentHash(tree, false), false);
+            assertFalse(small.hasTeknonymies());
+            assertThrows(IllegalStateException.class, () -> small.getTeknonymy(0));
+
+            for (int person = 0; person < tree.size(); person++) {
+                String expected = service.getTeknonymy(tree, person);
+                assertEquals(expected, full.getTeknonymy(person));
+                assertEquals(expected, full.getTeknonymy(tree, person));
+                assertEquals(expected, small.getTeknonymy(tree, person));
+            }
+        }
+    }
+
+    @Test
+    public void SameDateOfBirthMatchRecursiveTest() throws IOException {
+        for (int seed = 0; seed < 5; seed++) {
+            Person root = TeknonymyServiceTest.randomTiedTreeGenerator(5000, seed, 1 + seed % 3);
+            Map<String, String> expected = new HashMap<>();
+            new TeknonymyService().forEachTeknonymy(root, (person, teknonymy) -> expected.put(person.name(), teknonymy));
+
+            CompactFamilyTree tree = CompactFamilyTree.of(root);
+            Path file = folder.newFile().toPath();
+            TeknonymySnapshot.write(tree, file, true);
+            TeknonymySnapshot.MappedSnapshot snapshot = open(file, tree, true);
+
+            for (int person = 0; person < tree.size(); person++)
+                assertEquals(expected.get(tree.name(person)), snapshot.getTeknonymy(person));
+        }
+    }
+
+    @Test
+    public void StaleSnapshotTest() throws IOException {
+        CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.randomTreeGenerator(1000, 1));
+        CompactFamilyTree otherTree = CompactFamilyTree.of(TeknonymyServiceTest.randomTreeGenerator(1000, 2));
+        Path file = folder.newFile().toPath();
+        TeknonymySnapshot.write(tree, file, false);
+
+        assertNotEquals(TeknonymySnapshot.contentHash(tree, false), TeknonymySnapshot.contentHash(otherTree, false));
+        assertThrows(IOException.class, () -> open(file, otherTree, false));
+    }
+
+    @Test
+    public void RenamedPersonTest() throws IOException {
+        Person root = TeknonymyServiceTest.getPerson2();
+        Person renamed = new Person("Kimberly", root.sex(), root.children(), root.dateOfBirth());
+        CompactFamilyTree tree = CompactFamilyTree.of(root);
+        CompactFamilyTree renamedTree = CompactFamilyTree.of(renamed);
+        Path withTeknonymies = folder.newFile().toPath();
+        Path withoutTeknonymies = folder.newFile().toPath();
+        TeknonymySnapshot.write(tree, withTeknonymies, true);
+        TeknonymySnapshot.write(tree, withoutTeknonymies, false);
+
+        // Names do not change the results, only the rendered Teknonymies
+        assertThrows(IOException.class, () -> open(withTeknonymies, renamedTree, true));
+        assertEquals("great-great-great-grandmother of Stacey",
+                open(withoutTeknonymies, renamedTree, false).getTeknonymy(renamedTree, 0));
+    }
+
+    @Test
+    public void StoredContentHashTest() throws IOException {
+        Person root = TeknonymyServiceTest.randomTreeGenerator(1000, 1);
+        Person other = TeknonymyServiceTest.randomTreeGenerator(1000, 2);
+        Path treeFile = folder.newFile().toPath();
+        Path otherTreeFile = folder.newFile().toPath();
+        FamilyTreeFile.write(root, treeFile);
+        FamilyTreeFile.write(other, otherTreeFile);
+        FamilyTreeFile.MappedFamilyTree tree = FamilyTreeFile.open(treeFile);
+        FamilyTreeFile.MappedFamilyTree otherTree = FamilyTreeFile.open(otherTreeFile);
+
+        // The file stores the hashes of its tree, so they do not have to be computed again on every start
+        assertEquals(TeknonymySnapshot.contentHash(tree, false), tree.contentHash(false));
+        assertEquals(TeknonymySnapshot.contentHash(tree, true), tree.contentHash(true));
+        assertNotEquals(tree.contentHash(false), tree.contentHash(true));
+
+        Path withTeknonymies = folder.newFile().toPath();
+        Path withoutTeknonymies = folder.newFile().toPath();
+        TeknonymySnapshot.write(tree, withTeknonymies, true);
+        TeknonymySnapshot.write(tree, withoutTeknonymies, false);
+        CompactTeknonymyService service = new CompactTeknonymyService();
+        assertEquals(service.getTeknonymy(tree, 0),
+                TeknonymySnapshot.open(withTeknonymies, tree, true).getTeknonymy(0));
+        assertEquals(service.getTeknonymy(tree, 0),
+                TeknonymySnapshot.open(withoutTeknonymies, tree, false).getTeknonymy(tree, 0));
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(withTeknonymies, otherTree, false));
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(withoutTeknonymies, otherTree, false));
+
+        // Renamed: only the rendered Teknonymies are stale
+        Person renamed = new Person("Renamed", root.sex(), root.children(), root.dateOfBirth());
+        Path renamedTreeFile = folder.newFile().toPath();
+        FamilyTreeFile.write(renamed, renamedTreeFile);
+        FamilyTreeFile.MappedFamilyTree renamedTree = FamilyTreeFile.open(renamedTreeFile);
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(withTeknonymies, renamedTree, false));
+        TeknonymySnapshot.open(withoutTeknonymies, renamedTree, false);
+    }
+
+    @Test
+    public void CorruptedSnapshotTest() throws IOException {
+        CompactFamilyTree tree = CompactFamilyTree.of(TeknonymyServiceTest.randomTreeGenerator(1000, 1));
+        long hash = TeknonymySnapshot.contentHash(tree, true);
+        Path file = folder.newFile().toPath();
+        TeknonymySnapshot.write(tree, file, true);
+
+        // Flip a byte of the body
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, TeknonymySnapshot.HEADER_BYTES + 100);
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b.flip(), TeknonymySnapshot.HEADER_BYTES + 100);
+        }
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(file, hash, true));
+        TeknonymySnapshot.open(file, hash, false); // Only the checksum can tell
+
+        // Truncated
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(file, hash, false));
+
+        // Not a snapshot
+        Path treeFile = folder.newFile().toPath();
+        FamilyTreeFile.write(tree, treeFile);
+        assertThrows(IOException.class, () -> TeknonymySnapshot.open(treeFile, hash, false));
+    }
+
+    /**
+     * Maps a snapshot of 'tree', computing its content hash and verifying the checksum.
+     */
+    private static TeknonymySnapshot.MappedSnapshot open(Path file, ICompactFamilyTree tree, boolean withTeknonymies)
+            throws IOException {
+        return TeknonymySnapshot.open(file, TeknonymySnapshot.contentHash(tree, withTeknonymies), true);
+    }
+}